@@ -0,0 +1,98 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates artifacts and legacy engagement documents shaped like production
+ * data for the benchmarks. A fixed seed keeps runs comparable.
+ */
+public final class ArtifactFixtures {
+
+    private static final String[] TYPES = { "Demo", "Multimedia", "Retrospective", "Status Report", "Workshop" };
+    private static final String[] REGIONS = { "na", "emea", "apac", "latam" };
+
+    private ArtifactFixtures() {
+    }
+
+    public static List<Artifact> artifacts(String engagementUuid, int count) {
+
+        Random random = new Random(count);
+        List<Artifact> artifacts = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Instant modified = Timestamps.parse(String.format("2021-%02d-%02dT10:%02d:%02d.123456", 1 + i % 12, 1 + i % 28, i % 60,
+                    random.nextInt(60)));
+            artifacts.add(Artifact.builder().uuid(String.format("%08d-aaaa-bbbb-cccc-%012d", i, random.nextInt(100000)))
+                    .engagementUuid(engagementUuid).region(REGIONS[i % REGIONS.length]).type(TYPES[i % TYPES.length])
+                    .title("Artifact " + i + " for the customer engagement")
+                    .description("A description of artifact " + i
+                            + " long enough to resemble what engagement leads write about their demos and reports")
+                    .linkAddress("https://docs.example.com/engagements/" + engagementUuid + "/artifacts/" + i)
+                    .created(modified).modified(modified).build());
+        }
+
+        return artifacts;
+    }
+
+    /**
+     * Returns a copy of the artifacts with roughly one in ten updated, the last
+     * removed and one added, as a typical PUT would.
+     * 
+     * @param artifacts
+     * @return
+     */
+    public static List<Artifact> edited(List<Artifact> artifacts) {
+
+        List<Artifact> edited = new ArrayList<>(artifacts.size());
+        for (int i = 0; i < artifacts.size() - 1; i++) {
+            Artifact a = artifacts.get(i);
+            edited.add(Artifact.builder().uuid(a.getUuid()).engagementUuid(a.getEngagementUuid()).region(a.getRegion())
+                    .type(a.getType()).title(a.getTitle()).linkAddress(a.getLinkAddress()).created(a.getCreated())
+                    .modified(a.getModified())
+                    .description(i % 10 == 0 ? "UPDATED " + a.getDescription() : a.getDescription()).build());
+        }
+
+        edited.add(Artifact.builder().uuid("new-artifact").engagementUuid(artifacts.get(0).getEngagementUuid())
+                .region("na").type("Demo").title("New").description("New artifact").linkAddress("https://new").build());
+        return edited;
+    }
+
+    /**
+     * Returns a legacy engagement document with the given number of users and
+     * hosting environments alongside the usual top level attributes.
+     * 
+     * @param size
+     * @return
+     */
+    public static Map<String, Object> engagement(int size) {
+
+        Map<String, Object> engagement = new LinkedHashMap<>();
+        engagement.put("uuid", "e7d0c5a5-1111-2222-3333-444455556666");
+        engagement.put("customer_name", "Customer");
+        engagement.put("project_name", "Project");
+        engagement.put("description", "An engagement used for benchmarking");
+        engagement.put("location", "Raleigh, NC");
+        engagement.put("start_date", "2021-01-01T00:00:00.000Z");
+        engagement.put("end_date", "2021-03-01T00:00:00.000Z");
+
+        List<Map<String, String>> users = new ArrayList<>();
+        List<Map<String, String>> hosting = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            users.add(Map.of("email", "user" + i + "@example.com", "first_name", "First" + i, "last_name",
+                    "Last" + i, "role", "developer"));
+            hosting.add(Map.of("environment_name", "env" + i, "ocp_cloud_provider_name", "aws",
+                    "ocp_cluster_size", "medium", "ocp_version", "4.8"));
+        }
+        engagement.put("engagement_users", users);
+        engagement.put("hosting_environments", hosting);
+        engagement.put("artifacts", List.of());
+
+        return engagement;
+    }
+
+}
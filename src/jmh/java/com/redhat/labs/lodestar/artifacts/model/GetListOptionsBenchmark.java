@@ -0,0 +1,46 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.quarkus.panache.common.Sort;
+
+/**
+ * Parsing of the sort query parameter on every list request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetListOptionsBenchmark {
+
+    @Param({ "modified|DESC", "title|DESC,uuid|ASC", "region|ASC,type|DESC,title,modified|DESC" })
+    String sort;
+
+    GetListOptions options;
+
+    @Setup
+    public void setUp() {
+        options = new GetListOptions();
+        options.setSort(sort);
+    }
+
+    @Benchmark
+    public Sort getQuerySort() {
+        return options.getQuerySort();
+    }
+
+}
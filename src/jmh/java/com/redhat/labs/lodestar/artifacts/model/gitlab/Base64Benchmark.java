@@ -0,0 +1,62 @@
+package com.redhat.labs.lodestar.artifacts.model.gitlab;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redhat.labs.lodestar.artifacts.model.ArtifactFixtures;
+
+/**
+ * Base64 decoding of files read from GitLab and encoding of commit actions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base64Benchmark {
+
+    @Param({ "10", "100", "1000" })
+    int artifacts;
+
+    String content;
+    String encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        try (Jsonb jsonb = JsonbBuilder.create(new JsonbConfig().withFormatting(true))) {
+            content = jsonb.toJson(ArtifactFixtures.artifacts("1111", artifacts));
+        }
+        encoded = Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public File decodeFileAttributes() {
+        File file = File.builder().filePath("engagement%2Fartifacts.json").content(encoded).build();
+        file.decodeFileAttributes();
+        return file;
+    }
+
+    @Benchmark
+    public Action actionContent() {
+        return Action.builder().filePath("engagement/artifacts.json").content(content).build();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.javers.core.diff.Diff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactFixtures;
+
+/**
+ * Javers comparison of stored and incoming artifacts as done on every PUT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactDiffBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int artifacts;
+
+    List<Artifact> existing;
+    List<Artifact> incoming;
+
+    @Setup
+    public void setUp() {
+        existing = ArtifactFixtures.artifacts("1111", artifacts);
+        incoming = ArtifactFixtures.edited(existing);
+    }
+
+    @Benchmark
+    public Diff compareCollections() {
+        return ArtifactService.JAVERS.compareCollections(existing, incoming, Artifact.class);
+    }
+
+    @Benchmark
+    public Diff compareUnchanged() {
+        return ArtifactService.JAVERS.compareCollections(existing, existing, Artifact.class);
+    }
+
+}
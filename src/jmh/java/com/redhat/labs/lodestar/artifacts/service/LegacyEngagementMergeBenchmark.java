@@ -0,0 +1,63 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyNamingStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redhat.labs.lodestar.artifacts.model.ArtifactFixtures;
+
+/**
+ * Merge of the artifact list into the legacy engagement.json done on every
+ * commit to GitLab.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacyEngagementMergeBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int artifacts;
+
+    @Param({ "5", "50" })
+    int engagementSize;
+
+    ArtifactService service;
+    String engagementContent;
+    String artifactContent;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        service = new ArtifactService();
+
+        try (Jsonb jsonb = JsonbBuilder.create(new JsonbConfig().withFormatting(true)
+                .withPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES))) {
+            engagementContent = jsonb.toJson(ArtifactFixtures.engagement(engagementSize));
+            artifactContent = jsonb.toJson(ArtifactFixtures.artifacts("1111", artifacts));
+        }
+    }
+
+    @Benchmark
+    public String mergeLegacyEngagement() {
+        return service.mergeLegacyEngagement(engagementContent, artifactContent);
+    }
+
+}
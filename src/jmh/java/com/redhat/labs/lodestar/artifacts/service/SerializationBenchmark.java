@@ -0,0 +1,89 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyNamingStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactFixtures;
+
+/**
+ * Serialization of an engagement's artifact list with Jsonb, configured as in
+ * JsonConfig, and with Gson, each with and without pretty printing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int artifacts;
+
+    List<Artifact> list;
+    Jsonb jsonbPretty;
+    Jsonb jsonbCompact;
+    Gson gsonPretty;
+    Gson gsonCompact;
+
+    @Setup
+    public void setUp() {
+        list = ArtifactFixtures.artifacts("1111", artifacts);
+        jsonbPretty = JsonbBuilder.create(new JsonbConfig().withFormatting(true)
+                .withPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES));
+        jsonbCompact = JsonbBuilder.create(new JsonbConfig().withFormatting(false)
+                .withPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES));
+        gsonPretty = new GsonBuilder().setPrettyPrinting()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create();
+        gsonCompact = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonbPretty.close();
+        jsonbCompact.close();
+    }
+
+    @Benchmark
+    public String jsonbPretty() {
+        return jsonbPretty.toJson(list);
+    }
+
+    @Benchmark
+    public String jsonbCompact() {
+        return jsonbCompact.toJson(list);
+    }
+
+    @Benchmark
+    public String gsonPretty() {
+        return gsonPretty.toJson(list);
+    }
+
+    @Benchmark
+    public String gsonCompact() {
+        return gsonCompact.toJson(list);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.redhat.labs.lodestar.artifacts.config;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.pojo.PropertyCodecProvider;
+import org.bson.codecs.pojo.PropertyCodecRegistry;
+import org.bson.codecs.pojo.TypeWithTypeParameters;
+
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
+
+/**
+ * Stores {@link Instant} properties as BSON dates and reads them back from
+ * either a date or the string they were stored as before, so documents not yet
+ * migrated still load. A string that is not a timestamp reads as null.
+ */
+public class TimestampCodecProvider implements PropertyCodecProvider {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(TypeWithTypeParameters<T> type, PropertyCodecRegistry registry) {
+        return Instant.class.equals(type.getType()) ? (Codec<T>) new TimestampCodec() : null;
+    }
+
+    static class TimestampCodec implements Codec<Instant> {
+
+        @Override
+        public void encode(BsonWriter writer, Instant value, EncoderContext encoderContext) {
+            writer.writeDateTime(value.toEpochMilli());
+        }
+
+        @Override
+        public Instant decode(BsonReader reader, DecoderContext decoderContext) {
+
+            if (BsonType.STRING == reader.getCurrentBsonType()) {
+                String value = reader.readString();
+                try {
+                    return Timestamps.parse(value);
+                } catch (DateTimeParseException e) {
+                    // cleared by the migration
+                    return null;
+                }
+            }
+
+            return Instant.ofEpochMilli(reader.readDateTime());
+        }
+
+        @Override
+        public Class<Instant> getEncoderClass() {
+            return Instant.class;
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.redhat.labs.lodestar.artifacts.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Javers comparison of an engagement's stored and incoming artifacts.
+ */
+@Name("com.redhat.labs.lodestar.artifacts.ArtifactDiff")
+@Label("Artifact Diff")
+@Description("Javers compareCollections of stored and incoming artifacts")
+@Category({ "LodeStar", "Artifacts" })
+@StackTrace(false)
+public class ArtifactDiffEvent extends Event {
+
+    @Label("Engagement UUID")
+    String engagementUuid;
+
+    @Label("Existing Artifacts")
+    int existing;
+
+    @Label("Incoming Artifacts")
+    int incoming;
+
+    @Label("Changed Artifacts")
+    int changed;
+
+    public static ArtifactDiffEvent start(String engagementUuid, int existing, int incoming) {
+        ArtifactDiffEvent event = new ArtifactDiffEvent();
+        event.engagementUuid = engagementUuid;
+        event.existing = existing;
+        event.incoming = incoming;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int changed) {
+        this.changed = changed;
+        commit();
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.redhat.labs.lodestar.artifacts.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.ws.rs.WebApplicationException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.RecordingStatus;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Starts, dumps and stops a single in-process flight recording so profiles can
+ * be taken from a running pod without attaching an agent. The recording keeps
+ * a rolling window of events bounded by {@code jfr.recording.max.age} and
+ * {@code jfr.recording.max.size}.
+ *
+ * Events that capture the environment, system properties and JVM arguments are
+ * always disabled as they hold credentials such as the GitLab token.
+ */
+@ApplicationScoped
+public class FlightRecordings {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecordings.class);
+
+    static final String RECORDING_NAME = "lodestar-artifacts";
+
+    static final List<String> SENSITIVE_EVENTS = List.of("jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.ProcessStart");
+
+    @ConfigProperty(name = "jfr.recording.settings", defaultValue = "default")
+    String settings;
+
+    @ConfigProperty(name = "jfr.recording.max.age", defaultValue = "30m")
+    Duration maxAge;
+
+    @ConfigProperty(name = "jfr.recording.max.size", defaultValue = "100000000")
+    long maxSize;
+
+    @ConfigProperty(name = "jfr.recording.start.on.boot", defaultValue = "false")
+    boolean startOnBoot;
+
+    private Recording recording;
+
+    void onStart(@Observes StartupEvent event) {
+        if (startOnBoot) {
+            start(Optional.empty());
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        stop();
+    }
+
+    /**
+     * Starts the recording if it is not already running.
+     * 
+     * @param duration stops the recording automatically after this long
+     * @return
+     */
+    public synchronized RecordingStatus start(Optional<Duration> duration) {
+
+        if (isRunning()) {
+            return status();
+        }
+
+        // a recording that reached its duration is replaced
+        stop();
+
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new WebApplicationException("Unable to load recording settings " + settings, 500);
+        }
+
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        duration.ifPresent(recording::setDuration);
+
+        recording.enable(RefreshPhaseEvent.class);
+        recording.enable(ArtifactDiffEvent.class);
+        recording.enable(SerializationEvent.class);
+        recording.enable(GitlabCommitEvent.class);
+        SENSITIVE_EVENTS.forEach(recording::disable);
+
+        recording.start();
+        LOGGER.info("Started flight recording with {} settings", settings);
+
+        return status();
+    }
+
+    /**
+     * Writes the events recorded so far to a temporary file and returns its path.
+     * The recording keeps running. The caller should delete the file when done.
+     * 
+     * @return
+     * @throws IOException
+     */
+    public synchronized Path dump() throws IOException {
+
+        if (null == recording || recording.getState() == RecordingState.CLOSED) {
+            throw new WebApplicationException("No flight recording has been started", 404);
+        }
+
+        Path file = Files.createTempFile(RECORDING_NAME, ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    /**
+     * Stops and discards the recording.
+     */
+    public synchronized void stop() {
+
+        if (null != recording) {
+            recording.close();
+            recording = null;
+            LOGGER.info("Stopped flight recording");
+        }
+    }
+
+    public synchronized RecordingStatus status() {
+
+        if (null == recording) {
+            return RecordingStatus.builder().name(RECORDING_NAME).state(RecordingState.CLOSED.name()).build();
+        }
+
+        return RecordingStatus.builder().name(RECORDING_NAME).state(recording.getState().name())
+                .startTime(null == recording.getStartTime() ? null : recording.getStartTime().toString())
+                .maxAge(String.valueOf(recording.getMaxAge())).maxSize(recording.getMaxSize())
+                .size(recording.getSize()).build();
+    }
+
+    boolean isRunning() {
+        return null != recording && (recording.getState() == RecordingState.RUNNING
+                || recording.getState() == RecordingState.DELAYED || recording.getState() == RecordingState.NEW);
+    }
+
+}
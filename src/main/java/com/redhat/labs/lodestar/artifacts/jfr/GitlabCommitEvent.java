@@ -0,0 +1,48 @@
+package com.redhat.labs.lodestar.artifacts.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Commit of an engagement's artifact files to GitLab.
+ */
+@Name("com.redhat.labs.lodestar.artifacts.GitlabCommit")
+@Label("GitLab Commit")
+@Description("createCommit call to GitLab with the artifact files")
+@Category({ "LodeStar", "Artifacts" })
+@StackTrace(false)
+public class GitlabCommitEvent extends Event {
+
+    @Label("Engagement UUID")
+    String engagementUuid;
+
+    @Label("Project Id")
+    long projectId;
+
+    @Label("Actions")
+    int actions;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    public static GitlabCommitEvent start(String engagementUuid, long projectId, int actions, long payloadSize) {
+        GitlabCommitEvent event = new GitlabCommitEvent();
+        event.engagementUuid = engagementUuid;
+        event.projectId = projectId;
+        event.actions = actions;
+        event.payloadSize = payloadSize;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        commit();
+    }
+
+}
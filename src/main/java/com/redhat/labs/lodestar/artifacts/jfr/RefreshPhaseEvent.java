@@ -0,0 +1,53 @@
+package com.redhat.labs.lodestar.artifacts.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of refreshing an engagement's artifacts from GitLab.
+ */
+@Name("com.redhat.labs.lodestar.artifacts.RefreshPhase")
+@Label("Engagement Refresh Phase")
+@Description("Fetch, decode, parse or persist step of an engagement refresh")
+@Category({ "LodeStar", "Artifacts" })
+@StackTrace(false)
+public class RefreshPhaseEvent extends Event {
+
+    public static final String FETCH = "fetch";
+    public static final String DECODE = "decode";
+    public static final String PARSE = "parse";
+    public static final String PERSIST = "persist";
+
+    @Label("Engagement UUID")
+    String engagementUuid;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Artifacts")
+    int artifacts;
+
+    public static RefreshPhaseEvent start(String engagementUuid, String phase) {
+        RefreshPhaseEvent event = new RefreshPhaseEvent();
+        event.engagementUuid = engagementUuid;
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long payloadSize, int artifacts) {
+        this.payloadSize = payloadSize;
+        this.artifacts = artifacts;
+        commit();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.redhat.labs.lodestar.artifacts.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Jsonb serialization of an engagement's artifact list.
+ */
+@Name("com.redhat.labs.lodestar.artifacts.Serialization")
+@Label("Artifact Serialization")
+@Description("Jsonb serialization of an engagement's artifacts")
+@Category({ "LodeStar", "Artifacts" })
+@StackTrace(false)
+public class SerializationEvent extends Event {
+
+    @Label("Engagement UUID")
+    String engagementUuid;
+
+    @Label("Artifacts")
+    int artifacts;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    public static SerializationEvent start(String engagementUuid, int artifacts) {
+        SerializationEvent event = new SerializationEvent();
+        event.engagementUuid = engagementUuid;
+        event.artifacts = artifacts;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long payloadSize) {
+        this.payloadSize = payloadSize;
+        commit();
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Application meters for the diff, refresh and artifact count hot paths.
+ */
+@ApplicationScoped
+public class ArtifactMetrics {
+
+    public static final String DRIFT_GITLAB = "gitlab";
+    public static final String DRIFT_MONGO = "mongo";
+
+    @Inject
+    MeterRegistry registry;
+
+    private Timer diffTimer;
+    private DistributionSummary diffChanges;
+    private Timer refreshTimer;
+    private DistributionSummary refreshArtifacts;
+    private MultiGauge engagementArtifacts;
+    private Counter queuedCommits;
+    private Counter skippedCommits;
+    private final AtomicLong totalArtifacts = new AtomicLong();
+    private final AtomicLong pendingCommits = new AtomicLong();
+    private final AtomicLong unhealthyEngagements = new AtomicLong();
+    private final AtomicLong driftedEngagements = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+
+        diffTimer = Timer.builder("artifacts.diff").description("Time to diff an engagement's artifacts with Javers")
+                .publishPercentileHistogram().register(registry);
+
+        diffChanges = DistributionSummary.builder("artifacts.diff.changes")
+                .description("Number of changed artifacts found per diff").publishPercentileHistogram()
+                .register(registry);
+
+        refreshTimer = Timer.builder("artifacts.refresh.engagement").description("Time to refresh an engagement from GitLab")
+                .publishPercentileHistogram().register(registry);
+
+        refreshArtifacts = DistributionSummary.builder("artifacts.refresh.engagement.artifacts")
+                .description("Number of artifacts loaded from GitLab per engagement refresh")
+                .publishPercentileHistogram().register(registry);
+
+        engagementArtifacts = MultiGauge.builder("artifacts.engagement.artifacts")
+                .description("Number of artifacts in the database per engagement").register(registry);
+
+        Gauge.builder("artifacts.total", totalArtifacts, AtomicLong::get)
+                .description("Number of artifacts in the database").register(registry);
+
+        queuedCommits = Counter.builder("artifacts.commits.queued")
+                .description("Artifact commits queued because GitLab was unavailable").register(registry);
+
+        skippedCommits = Counter.builder("artifacts.commits.skipped")
+                .description("Artifact commits skipped because git already had the content").register(registry);
+
+        Gauge.builder("artifacts.commits.pending", pendingCommits, AtomicLong::get)
+                .description("Artifact commits waiting to be retried").register(registry);
+
+        Gauge.builder("artifacts.engagements.unhealthy", unhealthyEngagements, AtomicLong::get)
+                .description("Engagements whose last reload from GitLab failed").register(registry);
+
+        Gauge.builder("artifacts.drift.engagements", driftedEngagements, AtomicLong::get)
+                .description("Engagements found out of step with GitLab by the last drift check").register(registry);
+    }
+
+    public <T> T timeDiff(Supplier<T> diff) {
+        return diffTimer.record(diff);
+    }
+
+    public void recordDiffChanges(int changes) {
+        diffChanges.record(changes);
+    }
+
+    /**
+     * Records how long refreshing an engagement from GitLab took and how many
+     * artifacts it loaded. Not tagged by engagement, which would add a series per
+     * engagement. The engagement is in the logs and flight recorder events.
+     * 
+     * @param elapsedNanos
+     * @param artifacts
+     */
+    public void recordRefresh(long elapsedNanos, int artifacts) {
+        refreshTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        refreshArtifacts.record(artifacts);
+    }
+
+    public void recordQueuedCommit() {
+        queuedCommits.increment();
+    }
+
+    public void recordSkippedCommit() {
+        skippedCommits.increment();
+    }
+
+    /**
+     * Counts a file left out of a commit because git already had its content.
+     * 
+     * @param file
+     */
+    public void recordSkippedAction(String file) {
+        Counter.builder("artifacts.commits.actions.skipped")
+                .description("Files left out of artifact commits because git already had their content")
+                .tag("file", file).register(registry).increment();
+    }
+
+    public void updatePendingCommits(long pending) {
+        pendingCommits.set(pending);
+    }
+
+    public void updateUnhealthyEngagements(long unhealthy) {
+        unhealthyEngagements.set(unhealthy);
+    }
+
+    /**
+     * Counts an engagement found out of step with GitLab.
+     * 
+     * @param source {@link #DRIFT_GITLAB} if the file in GitLab changed or
+     *               {@link #DRIFT_MONGO} if the artifacts in Mongo did
+     */
+    public void recordDrift(String source) {
+        Counter.builder("artifacts.drift.detected").description("Engagements found out of step with GitLab")
+                .tag("source", source).register(registry).increment();
+    }
+
+    public void updateDriftedEngagements(long drifted) {
+        driftedEngagements.set(drifted);
+    }
+
+    /**
+     * Replaces the per engagement artifact count gauges.
+     * 
+     * @param counts artifact count keyed by engagement uuid
+     */
+    public void updateEngagementCounts(Map<String, Long> counts) {
+        engagementArtifacts.register(counts.entrySet().stream().filter(e -> null != e.getKey())
+                .map(e -> MultiGauge.Row.of(Tags.of("engagement", e.getKey()), e.getValue()))
+                .collect(Collectors.toList()), true);
+        totalArtifacts.set(counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+}
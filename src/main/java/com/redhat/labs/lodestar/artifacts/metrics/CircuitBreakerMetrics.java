@@ -0,0 +1,49 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
+import com.redhat.labs.lodestar.artifacts.rest.client.GitlabRestClient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.faulttolerance.api.CircuitBreakerMaintenance;
+import io.smallrye.faulttolerance.api.CircuitBreakerState;
+
+/**
+ * Publishes the state of each REST client circuit breaker as one gauge per
+ * state, set to 1 for the current state and 0 otherwise. Each client method
+ * has its own breaker.
+ */
+@ApplicationScoped
+public class CircuitBreakerMetrics {
+
+    public static final String CIRCUIT_BREAKER_STATE = "artifacts.circuit.breaker.state";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    CircuitBreakerMaintenance maintenance;
+
+    void onStart(@Observes StartupEvent event) {
+        register(GitlabRestClient.GET_FILE_BREAKER);
+        register(GitlabRestClient.GET_FILE_HEAD_BREAKER);
+        register(GitlabRestClient.CREATE_COMMIT_BREAKER);
+        register(EngagementApiRestClient.GET_ENGAGEMENT_BREAKER);
+        register(EngagementApiRestClient.GET_ENGAGEMENT_PAGE_BREAKER);
+        register(EngagementApiRestClient.UPDATE_ENGAGEMENT_BREAKER);
+    }
+
+    void register(String name) {
+        for (CircuitBreakerState state : CircuitBreakerState.values()) {
+            Gauge.builder(CIRCUIT_BREAKER_STATE, maintenance, m -> m.currentState(name) == state ? 1 : 0)
+                    .description("Current state of the REST client circuit breaker").tag("name", name)
+                    .tag("state", state.name().toLowerCase()).register(registry);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs outside the fault tolerance interceptor so it sees its rejections.
+ */
+@ClientRejections
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class ClientRejectionInterceptor {
+
+    public static final String CLIENT_REJECTIONS = "artifacts.client.rejections";
+
+    @Inject
+    MeterRegistry registry;
+
+    @AroundInvoke
+    Object count(InvocationContext context) throws Exception {
+        try {
+            return context.proceed();
+        } catch (CircuitBreakerOpenException e) {
+            record(context, "circuit_open");
+            throw e;
+        } catch (BulkheadException e) {
+            record(context, "bulkhead_full");
+            throw e;
+        }
+    }
+
+    void record(InvocationContext context, String reason) {
+        registry.counter(CLIENT_REJECTIONS, "client", context.getMethod().getDeclaringClass().getSimpleName(),
+                "reason", reason).increment();
+    }
+
+}
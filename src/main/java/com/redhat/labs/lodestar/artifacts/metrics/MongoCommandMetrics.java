@@ -0,0 +1,44 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the latency of every command sent to Mongo, tagged with the command
+ * name and whether it succeeded. Registered with the Mongo client by Quarkus.
+ */
+@ApplicationScoped
+public class MongoCommandMetrics implements CommandListener {
+
+    public static final String MONGO_COMMANDS = "artifacts.mongodb.commands";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getCommandName(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getCommandName(), "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    void record(String command, String status, long elapsed) {
+        Timer.builder(MONGO_COMMANDS).description("Mongo command latency").tag("command", command)
+                .tag("status", status).publishPercentileHistogram().register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        ServerTimings.current().ifPresent(timings -> timings.add(ServerTimings.MONGO, elapsed));
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the duration of each REST client call, tagged with the client
+ * interface, the interface method and the response status, and adds it to the
+ * {@link ServerTimings} of the current request. Calls that fail without a
+ * response are recorded by {@link RestClientTimingInterceptor}.
+ */
+public class RestClientTimingFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    public static final String CLIENT_REQUESTS = "artifacts.client.requests";
+
+    static final String INVOKED_METHOD = "org.eclipse.microprofile.rest.client.invokedMethod";
+    private static final String START = RestClientTimingFilter.class.getName() + ".start";
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+
+        Object start = requestContext.getProperty(START);
+        if (!(start instanceof Long)) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - (Long) start;
+        Method method = (Method) requestContext.getProperty(INVOKED_METHOD);
+
+        record(null == method ? requestContext.getUri().getHost() : method.getDeclaringClass().getSimpleName(),
+                null == method ? requestContext.getMethod() : method.getName(),
+                String.valueOf(responseContext.getStatus()),
+                null != method && EngagementApiRestClient.class.equals(method.getDeclaringClass()), elapsed);
+    }
+
+    static void record(String client, String method, String status, boolean engagementApi, long elapsed) {
+
+        Timer.builder(CLIENT_REQUESTS).description("Time spent calling GitLab and the Engagement API")
+                .tag("client", client).tag("method", method).tag("status", status)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+
+        ServerTimings.current().ifPresent(timings -> timings
+                .add(engagementApi ? ServerTimings.ENGAGEMENT_API : ServerTimings.GITLAB, elapsed));
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import javax.annotation.Priority;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.ResponseProcessingException;
+
+import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
+
+/**
+ * Records calls that fail without a response, such as a read timeout or a
+ * refused connection, with the status {@code IO_ERROR}. Calls that get a
+ * response are recorded by {@link RestClientTimingFilter}. Runs inside the fault
+ * tolerance interceptor so each retry is recorded.
+ */
+@TimedClient
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 100)
+public class RestClientTimingInterceptor {
+
+    static final String IO_ERROR = "IO_ERROR";
+
+    @AroundInvoke
+    Object time(InvocationContext context) throws Exception {
+
+        long start = System.nanoTime();
+
+        try {
+            return context.proceed();
+        } catch (ProcessingException e) {
+            if (!(e instanceof ResponseProcessingException)) {
+                Class<?> client = context.getMethod().getDeclaringClass();
+                RestClientTimingFilter.record(client.getSimpleName(), context.getMethod().getName(), IO_ERROR,
+                        EngagementApiRestClient.class.equals(client), System.nanoTime() - start);
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Writes the {@link ServerTimings} of the request as a {@code Server-Timing}
+ * header. Entities are serialized into a buffer first so the serialization
+ * time can be included before the headers are sent. Streamed entities are not
+ * buffered, so their header only covers the work done before streaming began.
+ */
+@Provider
+@ServerTimed
+public class ServerTimingFilter implements ContainerResponseFilter, WriterInterceptor {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+
+        if (responseContext.hasEntity() && !(responseContext.getEntity() instanceof StreamingOutput)) {
+            // added once serialized
+            return;
+        }
+
+        ServerTimings.current().map(ServerTimings::toHeader).filter(h -> !h.isEmpty())
+                .ifPresent(h -> responseContext.getHeaders().putSingle(SERVER_TIMING, h));
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+
+        Optional<ServerTimings> timings = ServerTimings.current();
+
+        if (timings.isEmpty() || context.getEntity() instanceof StreamingOutput) {
+            context.proceed();
+            return;
+        }
+
+        OutputStream output = context.getOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        context.setOutputStream(buffer);
+
+        long start = System.nanoTime();
+        context.proceed();
+        timings.get().add(ServerTimings.SERIALIZATION, System.nanoTime() - start);
+
+        context.getHeaders().putSingle(SERVER_TIMING, timings.get().toHeader());
+        buffer.writeTo(output);
+        context.setOutputStream(output);
+    }
+
+}
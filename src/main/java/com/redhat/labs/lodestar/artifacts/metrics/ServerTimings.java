@@ -0,0 +1,162 @@
+package com.redhat.labs.lodestar.artifacts.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.RequestScoped;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+
+/**
+ * Time spent in each stage of the current request, reported to clients in a
+ * W3C {@code Server-Timing} header by {@link ServerTimingFilter}. Stages are
+ * recorded from the Mongo listener, the REST client filter and the service,
+ * only while a request is active and {@code server.timing.enabled} is true.
+ * Work handed to other threads records into its own collector with
+ * {@link #recordInto(ServerTimings, Supplier)}, which the request adds once the
+ * work is done.
+ */
+@RequestScoped
+public class ServerTimings {
+
+    public static final String MONGO = "mongo";
+    public static final String COUNT = "count";
+    public static final String GITLAB = "gitlab";
+    public static final String ENGAGEMENT_API = "engagement-api";
+    public static final String SERIALIZATION = "serialization";
+
+    private static final Map<String, String> DESCRIPTIONS = Map.of(MONGO, "Mongo", COUNT,
+            "Count queries (included in mongo)", GITLAB, "GitLab API", ENGAGEMENT_API, "Engagement API", SERIALIZATION,
+            "JSON serialization");
+
+    private static final ThreadLocal<ServerTimings> DETACHED = new ThreadLocal<>();
+
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+
+    /**
+     * Adds to the time spent in the stage.
+     * 
+     * @param stage
+     * @param elapsedNanos
+     */
+    public synchronized void add(String stage, long elapsedNanos) {
+        nanos.merge(stage, elapsedNanos, Long::sum);
+    }
+
+    /**
+     * Adds the time spent in each stage of the other collector.
+     * 
+     * @param other
+     */
+    public void addAll(ServerTimings other) {
+        other.snapshot().forEach(this::add);
+    }
+
+    synchronized Map<String, Long> snapshot() {
+        return new LinkedHashMap<>(nanos);
+    }
+
+    /**
+     * Returns the {@code Server-Timing} header value, or an empty {@link String}
+     * if nothing was recorded.
+     * 
+     * @return
+     */
+    public synchronized String toHeader() {
+        return nanos.entrySet().stream()
+                .map(e -> String.format(Locale.ROOT, "%s;dur=%.3f;desc=\"%s\"", e.getKey(), e.getValue() / 1e6,
+                        DESCRIPTIONS.getOrDefault(e.getKey(), e.getKey())))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns the collector for the current request, or the one the current
+     * thread records into, if there is one and timing is enabled.
+     * 
+     * @return
+     */
+    public static Optional<ServerTimings> current() {
+
+        if (!Enabled.VALUE) {
+            return Optional.empty();
+        }
+
+        ServerTimings detached = DETACHED.get();
+        if (null != detached) {
+            return Optional.of(detached);
+        }
+
+        ArcContainer container = Arc.container();
+        if (null == container || !container.requestContext().isActive()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(container.instance(ServerTimings.class).get());
+    }
+
+    /**
+     * Records the time the supplier takes against the stage of the current
+     * request.
+     * 
+     * @param <T>
+     * @param stage
+     * @param supplier
+     * @return
+     */
+    public static <T> T time(String stage, Supplier<T> supplier) {
+
+        Optional<ServerTimings> timings = current();
+        if (timings.isEmpty()) {
+            return supplier.get();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            timings.get().add(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs the supplier on the current thread with its stages recorded into the
+     * given collector instead of the request's, so it needs no request context
+     * and may safely outlive the request.
+     * 
+     * @param <T>
+     * @param timings
+     * @param supplier
+     * @return
+     */
+    public static <T> T recordInto(ServerTimings timings, Supplier<T> supplier) {
+
+        ServerTimings previous = DETACHED.get();
+        DETACHED.set(timings);
+        try {
+            return supplier.get();
+        } finally {
+            if (null == previous) {
+                DETACHED.remove();
+            } else {
+                DETACHED.set(previous);
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Enabled.VALUE;
+    }
+
+    private static final class Enabled {
+        static final boolean VALUE = ConfigProvider.getConfig().getOptionalValue("server.timing.enabled", Boolean.class)
+                .orElse(false);
+    }
+
+}
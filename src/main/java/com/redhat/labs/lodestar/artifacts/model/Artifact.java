@@ -1,20 +1,42 @@
 package com.redhat.labs.lodestar.artifacts.model;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import javax.json.bind.annotation.JsonbProperty;
 import javax.json.bind.annotation.JsonbTransient;
+import javax.json.bind.annotation.JsonbTypeAdapter;
 import javax.validation.constraints.NotBlank;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonType;
+import org.bson.Document;
 import org.bson.codecs.pojo.annotations.BsonId;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.Id;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
 import io.quarkus.panache.common.Sort;
@@ -37,8 +59,12 @@ import static com.mongodb.client.model.Sorts.*;
 @TypeName("Artifact")
 @EqualsAndHashCode(callSuper = true)
 public class Artifact extends PanacheMongoEntityBase {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Artifact.class);
 
+    private static final String CREATED = "created";
     private static final String MODIFIED = "modified";
+    private static final String ENGAGEMENT_UUID = "engagementUuid";
+    private static final String SCORE = "score";
 
     @BsonId
     @DiffIgnore
@@ -48,10 +74,12 @@ public class Artifact extends PanacheMongoEntityBase {
     @Id
     private String uuid;
     @DiffIgnore
-    private String created;
+    @JsonbTypeAdapter(TimestampAdapter.class)
+    private Instant created;
     @DiffIgnore
     @JsonbProperty(value = "updated")
-    private String modified;
+    @JsonbTypeAdapter(TimestampAdapter.class)
+    private Instant modified;
 
     private String engagementUuid;
     @NotBlank
@@ -65,6 +93,32 @@ public class Artifact extends PanacheMongoEntityBase {
     
     private String region;
 
+    /**
+     * Returns true if the other artifact has the same content, ignoring its id
+     * and timestamps.
+     * 
+     * @param other
+     * @return
+     */
+    public boolean hasSameContent(Artifact other) {
+        return Objects.equals(uuid, other.uuid) && Objects.equals(engagementUuid, other.engagementUuid)
+                && Objects.equals(title, other.title) && Objects.equals(description, other.description)
+                && Objects.equals(type, other.type) && Objects.equals(linkAddress, other.linkAddress)
+                && Objects.equals(region, other.region);
+    }
+
+    /**
+     * Creates the indexes used by the artifact queries if they do not already
+     * exist.
+     */
+    public static void createIndexes() {
+        MongoCollection<Artifact> collection = mongoCollection();
+        collection.createIndex(Indexes.compoundIndex(Indexes.ascending(ENGAGEMENT_UUID), Indexes.descending(MODIFIED)));
+        collection.createIndex(Indexes.descending(MODIFIED));
+        collection.createIndex(Indexes.compoundIndex(Indexes.text("title"), Indexes.text("description")),
+                new IndexOptions().name("artifact_text").weights(new Document("title", 2).append("description", 1)));
+    }
+
     /**
      * Returns an {@link ArtifactCount} containing the count for the total number of
      * {@link Artifact}s in the database.
@@ -130,6 +184,58 @@ public class Artifact extends PanacheMongoEntityBase {
         return mongoCollection().aggregate(bson, ArtifactCount.class).into(new ArrayList<>());
     }
 
+    /**
+     * Returns an {@link EngagementArtifacts} for each of the given engagement uuids
+     * that has at least one {@link Artifact}. Each contains the total count for the
+     * engagement and at most limit artifacts sorted descending by modified
+     * timestamp. Reads the engagements with one query on the engagement uuid and
+     * modified index, counting each engagement's artifacts and keeping only the
+     * first limit of them.
+     * 
+     * @param engagementUuids
+     * @param limit
+     * @return
+     */
+    public static List<EngagementArtifacts> findAllByEngagementUuids(List<String> engagementUuids, int limit) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        List<EngagementArtifacts> engagements = new ArrayList<>();
+        EngagementArtifacts current = null;
+
+        try (MongoCursor<Artifact> cursor = collection.find(Filters.in(ENGAGEMENT_UUID, engagementUuids))
+                .sort(orderBy(ascending(ENGAGEMENT_UUID), descending(MODIFIED))).iterator()) {
+            while (cursor.hasNext()) {
+                Artifact artifact = cursor.next();
+                if (null == current || !current.getEngagementUuid().equals(artifact.getEngagementUuid())) {
+                    current = EngagementArtifacts.builder().engagementUuid(artifact.getEngagementUuid()).build();
+                    engagements.add(current);
+                }
+                current.setCount(current.getCount() + 1);
+                if (current.getArtifacts().size() < limit) {
+                    current.getArtifacts().add(artifact);
+                }
+            }
+        }
+
+        return engagements;
+    }
+
+    /**
+     * Returns a {@link List} of {@link Artifact}s matching the given filter sorted
+     * using the page specified.
+     * 
+     * @param filter
+     * @param page
+     * @param pageSize
+     * @param sort
+     * @return
+     */
+    public static List<Artifact> pagedArtifactsByFilter(Document filter, int page, int pageSize, Sort sort) {
+        Document sortDocument = new Document();
+        sort.getColumns().forEach(c -> sortDocument.append(c.getName(),
+                c.getDirection() == Sort.Direction.Descending ? -1 : 1));
+        return find(filter, sortDocument).page(page, pageSize).list();
+    }
+
     /**
      * Returns {@link List} of {@link Artifact}s sorted descending on modified
      * timestamp using the page specified.
@@ -164,6 +270,34 @@ public class Artifact extends PanacheMongoEntityBase {
         return find("{ $and: [ {'type':?1}, {'region':{'$in':[?2]}} ] }", sort, type, regions).page(page, pageSize).list();
     }
 
+    /**
+     * Returns a {@link List} of {@link Artifact}s matching the given filter, which
+     * must contain a $text query, sorted by text search relevance and then
+     * descending by modified timestamp using the page specified.
+     * 
+     * @param filter
+     * @param page
+     * @param pageSize
+     * @return
+     */
+    public static List<Artifact> pagedArtifactsByTextSearch(Document filter, int page, int pageSize) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        return collection.find(filter).projection(Projections.metaTextScore(SCORE))
+                .sort(orderBy(Sorts.metaTextScore(SCORE), descending(MODIFIED), ascending("uuid")))
+                .skip(page * pageSize).limit(pageSize).into(new ArrayList<>());
+    }
+
+    /**
+     * Returns an {@link ArtifactCount} containing the count for the number of
+     * {@link Artifact}s matching the given filter.
+     * 
+     * @param filter
+     * @return
+     */
+    public static ArtifactCount countArtifactsByFilter(Document filter) {
+        return ArtifactCount.builder().count(count(filter)).build();
+    }
+
     /**
      * Returns a {@link List} of {@link Artifact}s for the given engagement uuid,
      * sorted descending by modified timestamp using the page specified.
@@ -177,6 +311,22 @@ public class Artifact extends PanacheMongoEntityBase {
         return find("engagementUuid", sort, engagementUuid).page(page, pageSize).list();
     }
 
+    /**
+     * Returns a {@link MongoCursor} over all {@link Artifact}s for the given
+     * engagement uuid, sorted descending by modified timestamp. Documents are
+     * fetched from the database in batches as the cursor is iterated. The caller
+     * must close the cursor.
+     * 
+     * @param engagementUuid
+     * @param batchSize
+     * @return
+     */
+    public static MongoCursor<Artifact> cursorByEngagementUuid(String engagementUuid, int batchSize) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        return collection.find(Filters.eq(ENGAGEMENT_UUID, engagementUuid))
+                .sort(orderBy(descending(MODIFIED), ascending("uuid"))).batchSize(batchSize).cursor();
+    }
+
     /**
      * Returns a {@link List} containing all {@link Artifact}s that match the given
      * engagement uuid.
@@ -188,6 +338,124 @@ public class Artifact extends PanacheMongoEntityBase {
         return list("engagementUuid", engagementUuid);
     }
 
+    /**
+     * Returns a {@link List} containing all {@link Artifact}s that match any of the
+     * given engagement uuids.
+     * 
+     * @param engagementUuids
+     * @return
+     */
+    public static List<Artifact> findAllByEngagementUuidIn(Collection<String> engagementUuids) {
+        return list("engagementUuid in ?1", engagementUuids);
+    }
+
+    /**
+     * Returns the distinct engagement uuids of {@link Artifact}s modified after the
+     * given timestamp.
+     * 
+     * @param modified
+     * @return
+     */
+    public static List<String> findEngagementUuidsModifiedAfter(Instant modified) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        return collection.distinct(ENGAGEMENT_UUID, Filters.gt(MODIFIED, Date.from(modified)), String.class)
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * Returns the modified timestamp of the most recently modified {@link Artifact},
+     * or empty if there are no artifacts.
+     * 
+     * @return
+     */
+    public static Optional<Instant> findLatestModified() {
+        Optional<Artifact> latest = findAll(Sort.descending(MODIFIED)).firstResultOptional();
+        return latest.map(Artifact::getModified);
+    }
+
+    /**
+     * Returns the engagement uuid of every {@link Artifact} keyed by database id.
+     * 
+     * @return
+     */
+    public static Map<ObjectId, String> findAllEngagementUuidsById() {
+        Map<ObjectId, String> engagementUuids = new HashMap<>();
+        MongoCollection<Artifact> collection = mongoCollection();
+        collection.withDocumentClass(Document.class).find().projection(include(ENGAGEMENT_UUID))
+                .forEach(d -> engagementUuids.put(d.getObjectId("_id"), d.getString(ENGAGEMENT_UUID)));
+        return engagementUuids;
+    }
+
+    /**
+     * Returns a cursor over every {@link Artifact} as a raw {@link Document},
+     * fetched in batches. The caller must close the cursor.
+     * 
+     * @param batchSize
+     * @return
+     */
+    public static MongoCursor<Document> cursorAllDocuments(int batchSize) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        return collection.withDocumentClass(Document.class).find().batchSize(batchSize).cursor();
+    }
+
+    /**
+     * Inserts the raw {@link Artifact} documents in one unordered bulk write.
+     * 
+     * @param documents
+     */
+    public static void insertDocuments(List<Document> documents) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        collection.withDocumentClass(Document.class).insertMany(documents, new InsertManyOptions().ordered(false));
+    }
+
+    /**
+     * Converts the created and modified timestamps of at most limit
+     * {@link Artifact}s still stored as strings to dates and returns the number of
+     * artifacts converted. A timestamp that cannot be parsed is cleared.
+     * 
+     * @param limit
+     * @return
+     */
+    public static int migrateStringTimestamps(int limit) {
+
+        MongoCollection<Artifact> artifacts = mongoCollection();
+        MongoCollection<Document> collection = artifacts.withDocumentClass(Document.class);
+        List<Document> documents = collection
+                .find(Filters.or(Filters.type(CREATED, BsonType.STRING), Filters.type(MODIFIED, BsonType.STRING)))
+                .projection(include(CREATED, MODIFIED)).limit(limit).into(new ArrayList<>());
+
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        List<WriteModel<Document>> updates = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            List<Bson> sets = new ArrayList<>();
+            for (String field : List.of(CREATED, MODIFIED)) {
+                Object value = document.get(field);
+                if (value instanceof String) {
+                    sets.add(Updates.set(field, toDate(document.getObjectId("_id"), field, (String) value)));
+                }
+            }
+            // only convert a value still unchanged by another writer
+            updates.add(new UpdateOneModel<>(Filters.and(Filters.eq("_id", document.getObjectId("_id")),
+                    Filters.eq(CREATED, document.get(CREATED)), Filters.eq(MODIFIED, document.get(MODIFIED))),
+                    Updates.combine(sets)));
+        }
+
+        collection.bulkWrite(updates);
+        return documents.size();
+    }
+
+    private static Date toDate(ObjectId id, String field, String value) {
+        try {
+            return Date.from(Timestamps.parse(value));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Artifact {} has an invalid {} timestamp '{}'. Clearing it", id, field, value);
+            return null;
+        }
+    }
+
     /**
      * Returns and {@link Optional} containing the {@link Artifact} that matches the
      * given uuid. Otherwise, and empty {@link Optional} is returned.
@@ -209,6 +477,40 @@ public class Artifact extends PanacheMongoEntityBase {
         return Artifact.delete("uuid", uuid);
     }
 
+    /**
+     * Deletes the engagement's {@link Artifact}s whose uuid is not in the given
+     * {@link Collection} and returns the artifacts deleted. Only artifacts last
+     * modified before the given time are deleted, so one saved after a reload
+     * fetched its file is kept.
+     * 
+     * @param engagementUuid
+     * @param uuids
+     * @param modifiedBefore
+     * @return
+     */
+    public static List<Artifact> deleteByEngagementUuidAndUuidNotIn(String engagementUuid, Collection<String> uuids,
+            Instant modifiedBefore) {
+        MongoCollection<Artifact> collection = mongoCollection();
+        List<Artifact> removed = collection
+                .find(Filters.and(Filters.eq(ENGAGEMENT_UUID, engagementUuid), Filters.nin("uuid", uuids),
+                        Filters.or(Filters.lt(MODIFIED, Date.from(modifiedBefore)), Filters.exists(MODIFIED, false))))
+                .into(new ArrayList<>());
+        if (!removed.isEmpty()) {
+            collection.deleteMany(Filters.in("_id", removed.stream().map(Artifact::getId).collect(Collectors.toList())));
+        }
+        return removed;
+    }
+
+    /**
+     * Returns all {@link Artifact}s with any of the given uuids.
+     * 
+     * @param uuids
+     * @return
+     */
+    public static List<Artifact> findAllByUuidIn(Collection<String> uuids) {
+        return list("uuid in ?1", uuids);
+    }
+
     /**
      * Removes all {@link Artifact}s from the database.
      */
@@ -0,0 +1,175 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * An entry in the log of {@link Artifact} writes, numbered by a sequence shared
+ * by all replicas. Deletes are kept as tombstones so clients can sync
+ * incrementally. A reset marks where the artifacts were replaced wholesale.
+ * Entries are removed a week after they are recorded.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "artifactChanges")
+public class ArtifactChange extends PanacheMongoEntityBase {
+
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+    public static final String RESET = "RESET";
+
+    private static final String ID = "_id";
+    private static final String SEQUENCES = "sequences";
+    private static final String SEQUENCE_NAME = "artifactChanges";
+    private static final String VALUE = "value";
+
+    @BsonId
+    private long sequence;
+    private String operation;
+    private String uuid;
+    private String engagementUuid;
+    private String region;
+    private String artifactType;
+    private Date recorded;
+
+    public static ArtifactChange upsert(Artifact artifact) {
+        return of(UPSERT, artifact);
+    }
+
+    public static ArtifactChange delete(Artifact artifact) {
+        return of(DELETE, artifact);
+    }
+
+    private static ArtifactChange of(String operation, Artifact artifact) {
+        return ArtifactChange.builder().operation(operation).uuid(artifact.getUuid())
+                .engagementUuid(artifact.getEngagementUuid()).region(artifact.getRegion())
+                .artifactType(artifact.getType()).build();
+    }
+
+    public boolean isDelete() {
+        return DELETE.equals(operation);
+    }
+
+    public boolean isReset() {
+        return RESET.equals(operation);
+    }
+
+    /**
+     * Creates the TTL index that removes changes a week after they were recorded.
+     */
+    public static void createIndexes() {
+        MongoCollection<ArtifactChange> collection = mongoCollection();
+        collection.createIndex(Indexes.ascending("recorded"), new IndexOptions().expireAfter(7L, TimeUnit.DAYS));
+    }
+
+    /**
+     * Numbers the changes from the shared sequence, in order, and inserts them.
+     * 
+     * @param changes
+     */
+    public static void record(List<ArtifactChange> changes) {
+
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        long last = sequences().findOneAndUpdate(Filters.eq(ID, SEQUENCE_NAME), Updates.inc(VALUE, (long) changes.size()),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER)).get(VALUE,
+                        Number.class).longValue();
+
+        Date now = new Date();
+        long sequence = last - changes.size();
+        for (ArtifactChange change : changes) {
+            change.setSequence(++sequence);
+            change.setRecorded(now);
+        }
+
+        persist(changes);
+    }
+
+    /**
+     * Returns the last sequence number handed out, or 0 if none has been.
+     * 
+     * @return
+     */
+    public static long latestSequence() {
+        Document sequence = sequences().find(Filters.eq(ID, SEQUENCE_NAME)).first();
+        return null == sequence ? 0 : sequence.get(VALUE, Number.class).longValue();
+    }
+
+    /**
+     * Returns the oldest change still in the log, or empty if the log is empty.
+     * 
+     * @return
+     */
+    public static Optional<ArtifactChange> findOldest() {
+        MongoCollection<ArtifactChange> collection = mongoCollection();
+        return Optional.ofNullable(collection.find().sort(Sorts.ascending(ID)).limit(1).first());
+    }
+
+    /**
+     * Returns at most limit changes after the given sequence number in order.
+     * 
+     * @param sequence
+     * @param limit
+     * @return
+     */
+    public static List<ArtifactChange> findAfter(long sequence, int limit) {
+        MongoCollection<ArtifactChange> collection = mongoCollection();
+        return collection.find(Filters.gt(ID, sequence)).sort(Sorts.ascending(ID)).limit(limit)
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * Returns the changes of a {@link Collection} of {@link Artifact}s.
+     * 
+     * @param operation
+     * @param artifacts
+     * @return
+     */
+    public static List<ArtifactChange> of(String operation, Collection<Artifact> artifacts) {
+        return artifacts.stream().map(a -> of(operation, a)).collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces every change in the log with a reset, so every earlier sequence
+     * number is known to be out of date.
+     */
+    public static void reset() {
+        deleteAll();
+        record(List.of(ArtifactChange.builder().operation(RESET).build()));
+    }
+
+    private static MongoCollection<Document> sequences() {
+        return mongoDatabase().getCollection(SEQUENCES);
+    }
+
+}
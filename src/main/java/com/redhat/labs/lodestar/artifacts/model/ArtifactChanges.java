@@ -0,0 +1,30 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The {@link Artifact}s created or updated and the tombstones of those deleted
+ * since a token, with the token to ask for the changes after these. Upserts
+ * are the artifacts as they are now. More is true if further changes are
+ * already waiting.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtifactChanges {
+
+    @Builder.Default
+    private List<Artifact> upserts = new ArrayList<>();
+    @Builder.Default
+    private List<ArtifactChange> deletes = new ArrayList<>();
+    private String next;
+    private boolean more;
+
+}
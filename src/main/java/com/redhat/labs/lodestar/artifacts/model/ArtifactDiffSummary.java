@@ -0,0 +1,28 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The uuids of the {@link Artifact}s created, updated and deleted by a single
+ * update of an engagement's artifacts.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtifactDiffSummary {
+
+    @Builder.Default
+    private List<String> created = new ArrayList<>();
+    @Builder.Default
+    private List<String> updated = new ArrayList<>();
+    @Builder.Default
+    private List<String> deleted = new ArrayList<>();
+
+}
@@ -0,0 +1,79 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * The resume token of the last change stream event processed by a watcher,
+ * allowing the watcher to continue where it left off after a restart. Each
+ * replica watches under its own id. Tokens not saved for a week, such as those
+ * of replicas that are gone, are removed by a TTL index.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "changeStreamTokens")
+public class ChangeStreamToken extends PanacheMongoEntityBase {
+
+    @BsonId
+    private String watcherId;
+    private BsonDocument token;
+    private Date saved;
+
+    /**
+     * Creates the TTL index that removes abandoned tokens.
+     */
+    public static void createIndexes() {
+        MongoCollection<ChangeStreamToken> collection = mongoCollection();
+        collection.createIndex(Indexes.ascending("saved"), new IndexOptions().expireAfter(7L, TimeUnit.DAYS));
+    }
+
+    /**
+     * Returns the saved resume token for the watcher, if any.
+     * 
+     * @param watcherId
+     * @return
+     */
+    public static Optional<BsonDocument> findToken(String watcherId) {
+        Optional<ChangeStreamToken> saved = findByIdOptional(watcherId);
+        return saved.map(ChangeStreamToken::getToken);
+    }
+
+    /**
+     * Creates or replaces the resume token for the watcher.
+     * 
+     * @param watcherId
+     * @param token
+     */
+    public static void saveToken(String watcherId, BsonDocument token) {
+        ChangeStreamToken.builder().watcherId(watcherId).token(token).saved(new Date()).build().persistOrUpdate();
+    }
+
+    /**
+     * Removes the resume token for the watcher.
+     * 
+     * @param watcherId
+     */
+    public static void removeToken(String watcherId) {
+        deleteById(watcherId);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The total number of {@link Artifact}s for an engagement along with the most
+ * recently modified artifacts, up to the requested limit.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngagementArtifacts {
+
+    private String engagementUuid;
+    @Builder.Default
+    private Long count = 0L;
+    @Builder.Default
+    private List<Artifact> artifacts = new ArrayList<>();
+
+}
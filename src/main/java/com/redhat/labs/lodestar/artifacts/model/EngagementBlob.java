@@ -0,0 +1,185 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * The GitLab blob id of the artifacts file each engagement was last loaded
+ * from or committed as, and a hash of its artifacts in Mongo as last loaded or
+ * written. A different blob id in GitLab means the file has changed since, and
+ * a different hash of the artifacts now in Mongo means the database has.
+ *
+ * The updated time is a BSON date. One stored as a string by an older version
+ * still loads and is converted by {@link #migrateStringTimestamps(int)}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "engagementBlobs")
+public class EngagementBlob extends PanacheMongoEntityBase {
+
+    private static final String ID = "_id";
+    private static final String PROJECT_ID = "projectId";
+    private static final String UPDATED = "updated";
+
+    @BsonId
+    private String engagementUuid;
+    private long projectId;
+    private String blobId;
+    private String contentHash;
+    private Instant updated;
+
+    /**
+     * Creates or replaces the blob id and content hash for the engagement.
+     * 
+     * @param engagementUuid
+     * @param projectId
+     * @param blobId
+     * @param contentHash
+     */
+    public static void saveBlob(String engagementUuid, long projectId, String blobId, String contentHash) {
+        EngagementBlob.builder().engagementUuid(engagementUuid).projectId(projectId).blobId(blobId)
+                .contentHash(contentHash).updated(Timestamps.now()).build().persistOrUpdate();
+    }
+
+    /**
+     * Sets the blob id for the engagement, keeping its content hash.
+     * 
+     * @param engagementUuid
+     * @param projectId
+     * @param blobId
+     */
+    public static void saveBlobId(String engagementUuid, long projectId, String blobId) {
+        MongoCollection<EngagementBlob> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, engagementUuid), Updates.combine(Updates.set(PROJECT_ID, projectId),
+                Updates.set("blobId", blobId), Updates.set(UPDATED, new Date())), new UpdateOptions().upsert(true));
+    }
+
+    /**
+     * Sets the content hash for the engagement, keeping its blob id.
+     * 
+     * @param engagementUuid
+     * @param contentHash
+     */
+    public static void saveContentHash(String engagementUuid, String contentHash) {
+        MongoCollection<EngagementBlob> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, engagementUuid),
+                Updates.combine(Updates.set("contentHash", contentHash), Updates.set(UPDATED, new Date())),
+                new UpdateOptions().upsert(true));
+    }
+
+    /**
+     * Returns the blob id of the engagement's artifacts file, if known.
+     * 
+     * @param engagementUuid
+     * @return
+     */
+    public static Optional<String> findBlobId(String engagementUuid) {
+        return EngagementBlob.<EngagementBlob>findByIdOptional(engagementUuid).map(EngagementBlob::getBlobId);
+    }
+
+    /**
+     * Returns the blob id of every engagement keyed by engagement uuid.
+     * 
+     * @return
+     */
+    public static Map<String, String> findBlobIds() {
+        Map<String, String> blobIds = new HashMap<>();
+        findAllBlobs().forEach(b -> blobIds.put(b.getEngagementUuid(), b.getBlobId()));
+        return blobIds;
+    }
+
+    /**
+     * Returns every saved blob keyed by engagement uuid.
+     * 
+     * @return
+     */
+    public static Map<String, EngagementBlob> findBlobsByEngagement() {
+        Map<String, EngagementBlob> blobs = new HashMap<>();
+        findAllBlobs().forEach(b -> blobs.put(b.getEngagementUuid(), b));
+        return blobs;
+    }
+
+    /**
+     * Returns every saved blob id.
+     * 
+     * @return
+     */
+    public static List<EngagementBlob> findAllBlobs() {
+        return listAll();
+    }
+
+    /**
+     * Removes all blob ids.
+     */
+    public static long removeAllBlobs() {
+        return deleteAll();
+    }
+
+    /**
+     * Converts at most limit updated times stored as strings to BSON dates and
+     * returns the number of blobs converted. A time that cannot be parsed is
+     * cleared.
+     * 
+     * @param limit
+     * @return
+     */
+    public static int migrateStringTimestamps(int limit) {
+
+        MongoCollection<EngagementBlob> blobs = mongoCollection();
+        MongoCollection<Document> collection = blobs.withDocumentClass(Document.class);
+        List<Document> documents = collection.find(Filters.type(UPDATED, BsonType.STRING))
+                .projection(new Document(UPDATED, 1)).limit(limit).into(new ArrayList<>());
+
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        List<WriteModel<Document>> updates = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            String value = document.getString(UPDATED);
+            // only convert a value still unchanged by another writer
+            Bson filter = Filters.and(Filters.eq(ID, document.get(ID)), Filters.eq(UPDATED, value));
+            updates.add(new UpdateOneModel<>(filter, Updates.set(UPDATED, toDate(value))));
+        }
+
+        collection.bulkWrite(updates);
+        return documents.size();
+    }
+
+    private static Date toDate(String value) {
+        try {
+            return Date.from(Timestamps.parse(value));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+}
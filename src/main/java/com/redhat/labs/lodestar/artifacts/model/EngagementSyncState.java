@@ -0,0 +1,150 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.Date;
+import java.util.List;
+
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of the last reload of an engagement's artifacts from GitLab.
+ * Failed engagements hold the time of their next retry, and the number of
+ * failures in a row the retry was backed off by. Engagements with no artifacts
+ * file are missing, which is not retried until a refresh finds the file.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "engagementSyncStates")
+public class EngagementSyncState extends PanacheMongoEntityBase {
+
+    public static final String HEALTHY = "HEALTHY";
+    public static final String FAILED = "FAILED";
+    public static final String MISSING = "MISSING";
+
+    private static final String ID = "_id";
+    private static final String PROJECT_ID = "projectId";
+    private static final String STATUS = "status";
+    private static final String ATTEMPTS = "attempts";
+    private static final String NEXT_RETRY = "nextRetry";
+    private static final String LAST_FAILURE = "lastFailure";
+
+    @BsonId
+    private String engagementUuid;
+    private long projectId;
+    private String status;
+    private Date lastSuccess;
+    private Date lastFailure;
+    private String lastError;
+    private int attempts;
+    private Date nextRetry;
+
+    /**
+     * Records a successful reload, clearing any failures.
+     *
+     * @param engagementUuid
+     * @param projectId
+     */
+    public static void recordSuccess(String engagementUuid, long projectId) {
+        MongoCollection<EngagementSyncState> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, engagementUuid),
+                Updates.combine(Updates.set(PROJECT_ID, projectId), Updates.set(STATUS, HEALTHY),
+                        Updates.set("lastSuccess", new Date()), Updates.set(ATTEMPTS, 0), Updates.unset(NEXT_RETRY)),
+                new UpdateOptions().upsert(true));
+    }
+
+    /**
+     * Records a failed reload and returns the state with the failure counted.
+     *
+     * @param engagementUuid
+     * @param projectId
+     * @param error
+     * @return
+     */
+    public static EngagementSyncState recordFailure(String engagementUuid, long projectId, String error) {
+        MongoCollection<EngagementSyncState> collection = mongoCollection();
+        return collection.findOneAndUpdate(Filters.eq(ID, engagementUuid),
+                Updates.combine(Updates.set(PROJECT_ID, projectId), Updates.set(STATUS, FAILED),
+                        Updates.set(LAST_FAILURE, new Date()), Updates.set("lastError", error),
+                        Updates.inc(ATTEMPTS, 1)),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+    }
+
+    /**
+     * Records that the engagement has no artifacts file. Nothing is retried, as
+     * only a change in GitLab can fix it.
+     *
+     * @param engagementUuid
+     * @param projectId
+     * @param error
+     */
+    public static void recordMissing(String engagementUuid, long projectId, String error) {
+        MongoCollection<EngagementSyncState> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, engagementUuid),
+                Updates.combine(Updates.set(PROJECT_ID, projectId), Updates.set(STATUS, MISSING),
+                        Updates.set(LAST_FAILURE, new Date()), Updates.set("lastError", error),
+                        Updates.inc(ATTEMPTS, 1), Updates.unset(NEXT_RETRY)),
+                new UpdateOptions().upsert(true));
+    }
+
+    /**
+     * Sets when a failed engagement is next retried.
+     *
+     * @param engagementUuid
+     * @param nextRetry
+     */
+    public static void scheduleRetry(String engagementUuid, Date nextRetry) {
+        MongoCollection<EngagementSyncState> collection = mongoCollection();
+        collection.updateOne(Filters.and(Filters.eq(ID, engagementUuid), Filters.eq(STATUS, FAILED)),
+                Updates.set(NEXT_RETRY, nextRetry));
+    }
+
+    /**
+     * Returns failed engagements due a retry, longest overdue first.
+     *
+     * @param now
+     * @param limit
+     * @return
+     */
+    public static List<EngagementSyncState> findDueForRetry(Date now, int limit) {
+        return find("status = ?1 and nextRetry <= ?2", Sort.ascending(NEXT_RETRY), FAILED, now)
+                .page(Page.ofSize(limit)).list();
+    }
+
+    /**
+     * Returns all failed and missing engagements, most recent failure first.
+     *
+     * @return
+     */
+    public static List<EngagementSyncState> findAllFailed() {
+        return list("status in ?1", Sort.descending(LAST_FAILURE), List.of(FAILED, MISSING));
+    }
+
+    public static boolean isHealthy(String engagementUuid) {
+        return EngagementSyncState.<EngagementSyncState>findByIdOptional(engagementUuid)
+                .map(s -> HEALTHY.equals(s.getStatus())).orElse(false);
+    }
+
+    public static long countFailed() {
+        return count("status in ?1", List.of(FAILED, MISSING));
+    }
+
+}
@@ -1,11 +1,16 @@
 package com.redhat.labs.lodestar.artifacts.model;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 
+import org.bson.Document;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 
 import lombok.AllArgsConstructor;
@@ -29,6 +34,18 @@ public class GetOptions {
     @QueryParam("region")
     private List<String> region = new ArrayList<>();
 
+    @Parameter(name = "modifiedSince", required = false, description = "return only artifacts updated at or after this UTC date time, e.g. 2021-06-01T00:00:00")
+    @QueryParam("modifiedSince")
+    private String modifiedSince;
+
+    @Parameter(name = "modifiedBefore", required = false, description = "return only artifacts updated before this UTC date time")
+    @QueryParam("modifiedBefore")
+    private String modifiedBefore;
+
+    public GetOptions(String engagementUuid, String type, List<String> region) {
+        this(engagementUuid, type, region, null, null);
+    }
+
     public Optional<String> getEngagementUuid() {
         return Optional.ofNullable(engagementUuid);
     }
@@ -41,4 +58,64 @@ public class GetOptions {
         return region == null ? new ArrayList<>() : region;
     }
 
+    public Optional<Instant> getModifiedSince() {
+        return parseTimestamp("modifiedSince", modifiedSince);
+    }
+
+    public Optional<Instant> getModifiedBefore() {
+        return parseTimestamp("modifiedBefore", modifiedBefore);
+    }
+
+    public boolean hasModifiedRange() {
+        return null != modifiedSince || null != modifiedBefore;
+    }
+
+    private static Optional<Instant> parseTimestamp(String name, String value) {
+
+        if (null == value) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Timestamps.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new WebApplicationException(name + " must be an ISO date time", 400);
+        }
+    }
+
+    /**
+     * Returns a query {@link Document} matching all of the options that are set.
+     * 
+     * @return
+     */
+    public Document toFilter() {
+        Document filter = new Document();
+        getEngagementUuid().ifPresent(uuid -> filter.append("engagementUuid", uuid));
+        getType().ifPresent(t -> filter.append("type", t));
+        if (!getRegion().isEmpty()) {
+            filter.append("region", new Document("$in", getRegion()));
+        }
+        if (hasModifiedRange()) {
+            Document range = new Document();
+            getModifiedSince().ifPresent(since -> range.append("$gte", Date.from(since)));
+            getModifiedBefore().ifPresent(before -> range.append("$lt", Date.from(before)));
+            filter.append("modified", range);
+        }
+        return filter;
+    }
+
+    /**
+     * Returns a query {@link Document} with the same precedence as the paged
+     * queries, where engagement uuid is ignored if type or region is set.
+     * 
+     * @return
+     */
+    public Document toListFilter() {
+        Document filter = toFilter();
+        if (getType().isPresent() || !getRegion().isEmpty()) {
+            filter.remove("engagementUuid");
+        }
+        return filter;
+    }
+
 }
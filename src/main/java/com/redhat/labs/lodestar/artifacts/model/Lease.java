@@ -0,0 +1,143 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * A named lease held by one replica until it expires. The fencing token grows
+ * each time the lease changes hands, so work started under an older token can
+ * tell it has been superseded.
+ *
+ * Expired leases are removed by a TTL index a day after they expire, which
+ * restarts their token. Only a holder paused for longer than that could see a
+ * token repeat.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "leases")
+public class Lease extends PanacheMongoEntityBase {
+
+    private static final String HOLDER = "holder";
+    private static final String EXPIRES = "expires";
+    private static final String TOKEN = "token";
+
+    @BsonId
+    private String name;
+    private String holder;
+    private long token;
+    private Date expires;
+
+    /**
+     * Creates the TTL index that removes abandoned leases.
+     */
+    public static void createIndexes() {
+        MongoCollection<Lease> collection = mongoCollection();
+        collection.createIndex(Indexes.ascending(EXPIRES), new IndexOptions().expireAfter(1L, TimeUnit.DAYS));
+    }
+
+    /**
+     * Takes or renews the lease for the holder. Returns the lease if the holder
+     * now holds it, or empty if another holder's lease has not yet expired. The
+     * token only changes when the lease is taken, not when it is renewed.
+     *
+     * @param name
+     * @param holder
+     * @param duration
+     * @return
+     */
+    public static Optional<Lease> tryAcquire(String name, String holder, Duration duration) {
+
+        MongoCollection<Lease> collection = mongoCollection();
+        Date now = new Date();
+        Date expires = new Date(now.getTime() + duration.toMillis());
+        FindOneAndUpdateOptions after = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+
+        Lease renewed = collection.findOneAndUpdate(
+                Filters.and(Filters.eq("_id", name), Filters.eq(HOLDER, holder), Filters.gt(EXPIRES, now)),
+                Updates.set(EXPIRES, expires), after);
+        if (null != renewed) {
+            return Optional.of(renewed);
+        }
+
+        try {
+            return Optional.ofNullable(collection.findOneAndUpdate(
+                    Filters.and(Filters.eq("_id", name), Filters.or(Filters.eq(HOLDER, holder), Filters.lte(EXPIRES, now))),
+                    Updates.combine(Updates.set(HOLDER, holder), Updates.set(EXPIRES, expires),
+                            Updates.inc(TOKEN, 1L)),
+                    after.upsert(true)));
+        } catch (MongoException e) {
+            // the lease exists and is held by someone else so the upsert collided
+            if (ErrorCategory.fromErrorCode(e.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the holder still holds the lease with the given token.
+     *
+     * @param name
+     * @param holder
+     * @param token
+     * @return
+     */
+    public static boolean isHeld(String name, String holder, long token) {
+        MongoCollection<Lease> collection = mongoCollection();
+        return collection.countDocuments(Filters.and(Filters.eq("_id", name), Filters.eq(HOLDER, holder),
+                Filters.eq(TOKEN, token), Filters.gt(EXPIRES, new Date()))) > 0;
+    }
+
+    /**
+     * Returns true if the lease is unexpired and still has the given token,
+     * whoever holds it.
+     *
+     * @param name
+     * @param token
+     * @return
+     */
+    public static boolean isCurrent(String name, long token) {
+        MongoCollection<Lease> collection = mongoCollection();
+        return collection.countDocuments(
+                Filters.and(Filters.eq("_id", name), Filters.eq(TOKEN, token), Filters.gt(EXPIRES, new Date()))) > 0;
+    }
+
+    /**
+     * Expires the lease now if the holder holds it, so another replica can take
+     * it without waiting.
+     *
+     * @param name
+     * @param holder
+     */
+    public static void release(String name, String holder) {
+        MongoCollection<Lease> collection = mongoCollection();
+        collection.updateOne(Filters.and(Filters.eq("_id", name), Filters.eq(HOLDER, holder)),
+                Updates.set(EXPIRES, new Date()));
+    }
+
+}
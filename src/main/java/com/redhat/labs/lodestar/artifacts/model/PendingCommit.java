@@ -0,0 +1,87 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import io.quarkus.panache.common.Sort;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * An artifacts file commit that could not be made because GitLab was
+ * unavailable. There is at most one per engagement since the commit is rebuilt
+ * from the database when it is retried.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "pendingCommits")
+public class PendingCommit extends PanacheMongoEntityBase {
+
+    @BsonId
+    private String engagementUuid;
+    private String authorEmail;
+    private String authorName;
+    private String commitMessage;
+    private String queued;
+    private int attempts;
+
+    /**
+     * Queues the commit for the engagement, replacing any already queued and
+     * counting the attempt.
+     * 
+     * @param engagementUuid
+     * @param authorEmail
+     * @param authorName
+     * @param commitMessage
+     */
+    public static void queue(String engagementUuid, String authorEmail, String authorName, String commitMessage) {
+
+        Optional<PendingCommit> existing = findByIdOptional(engagementUuid);
+
+        PendingCommit.builder().engagementUuid(engagementUuid).authorEmail(authorEmail).authorName(authorName)
+                .commitMessage(commitMessage)
+                .queued(existing.map(PendingCommit::getQueued).orElse(LocalDateTime.now(ZoneId.of("Z")).toString()))
+                .attempts(existing.map(PendingCommit::getAttempts).orElse(0) + 1).build().persistOrUpdate();
+    }
+
+    /**
+     * Returns all queued commits, oldest first.
+     * 
+     * @return
+     */
+    public static List<PendingCommit> findAllPending() {
+        return listAll(Sort.ascending("queued"));
+    }
+
+    /**
+     * Returns true if a commit is queued for the engagement.
+     * 
+     * @param engagementUuid
+     * @return
+     */
+    public static boolean isPending(String engagementUuid) {
+        return findByIdOptional(engagementUuid).isPresent();
+    }
+
+    /**
+     * Removes the queued commit for the engagement, if any.
+     * 
+     * @param engagementUuid
+     */
+    public static void remove(String engagementUuid) {
+        deleteById(engagementUuid);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordingStatus {
+
+    private String name;
+    private String state;
+    private String startTime;
+    private String maxAge;
+    private Long maxSize;
+    private Long size;
+
+}
@@ -0,0 +1,130 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Updates;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import io.quarkus.panache.common.Sort;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a refresh spread over the {@link RefreshTask} queue. Replicas
+ * count each task they finish here, and the job is complete once every queued
+ * task is done, has failed or was superseded by a newer leader.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "refreshJobs")
+public class RefreshJob extends PanacheMongoEntityBase {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETE = "COMPLETE";
+
+    private static final String ID = "_id";
+    private static final String STATUS = "status";
+    private static final String COMPLETED = "completed";
+    private static final String FAILED = "failed";
+    private static final String SUPERSEDED = "superseded";
+    private static final String TOTAL = "total";
+    private static final String QUEUED = "queued";
+
+    @BsonId
+    private String jobId;
+    private String status;
+    private String startedBy;
+    private Date started;
+    private Date finished;
+    // true once every task has been queued and total is final
+    private boolean queued;
+    private long total;
+    private long completed;
+    private long failed;
+    private long superseded;
+
+    /**
+     * Creates the TTL index that removes jobs a week after they started.
+     */
+    public static void createIndexes() {
+        MongoCollection<RefreshJob> collection = mongoCollection();
+        collection.createIndex(Indexes.ascending("started"), new IndexOptions().expireAfter(7L, TimeUnit.DAYS));
+    }
+
+    public static RefreshJob start(String jobId, String startedBy) {
+        RefreshJob job = RefreshJob.builder().jobId(jobId).status(RUNNING).startedBy(startedBy).started(new Date())
+                .build();
+        job.persist();
+        return job;
+    }
+
+    /**
+     * Records that all tasks have been queued.
+     *
+     * @param jobId
+     * @param total
+     */
+    public static void queued(String jobId, long total) {
+        MongoCollection<RefreshJob> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, jobId), Updates.combine(Updates.set(TOTAL, total), Updates.set(QUEUED, true)));
+    }
+
+    public static void recordCompleted(String jobId) {
+        MongoCollection<RefreshJob> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, jobId), Updates.inc(COMPLETED, 1L));
+    }
+
+    public static void recordFailed(String jobId) {
+        MongoCollection<RefreshJob> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, jobId), Updates.inc(FAILED, 1L));
+    }
+
+    public static void recordSuperseded(String jobId) {
+        MongoCollection<RefreshJob> collection = mongoCollection();
+        collection.updateOne(Filters.eq(ID, jobId), Updates.inc(SUPERSEDED, 1L));
+    }
+
+    /**
+     * Marks the job complete if all its tasks are queued and finished. Returns
+     * true only for the caller that completed it.
+     *
+     * @param jobId
+     * @return
+     */
+    public static boolean completeIfFinished(String jobId) {
+        MongoCollection<RefreshJob> collection = mongoCollection();
+        Document finished = new Document("$gte",
+                List.of(new Document("$add", List.of("$" + COMPLETED, "$" + FAILED, "$" + SUPERSEDED)), "$" + TOTAL));
+        return collection.updateOne(
+                Filters.and(Filters.eq(ID, jobId), Filters.eq(STATUS, RUNNING), Filters.eq(QUEUED, true),
+                        Filters.expr(finished)),
+                Updates.combine(Updates.set(STATUS, COMPLETE), Updates.set("finished", new Date())))
+                .getModifiedCount() > 0;
+    }
+
+    public static Optional<RefreshJob> findJob(String jobId) {
+        return findByIdOptional(jobId);
+    }
+
+    public static Optional<RefreshJob> findLatest() {
+        return findAll(Sort.descending("started")).firstResultOptional();
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * One engagement to reload as part of a {@link RefreshJob}. Any replica may
+ * claim a pending task. The claim lasts until its lease expires, after which
+ * another replica may claim the task again, so a task is only lost if every
+ * attempt fails.
+ *
+ * Claims are matched on owner and attempt so a replica whose lease expired
+ * cannot complete a task another replica has since claimed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@MongoEntity(collection = "refreshTasks")
+public class RefreshTask extends PanacheMongoEntityBase {
+
+    public static final String PENDING = "PENDING";
+    public static final String CLAIMED = "CLAIMED";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+    public static final String SUPERSEDED = "SUPERSEDED";
+
+    private static final String ID = "_id";
+    private static final String STATUS = "status";
+    private static final String OWNER = "owner";
+    private static final String AVAILABLE = "available";
+    private static final String ATTEMPTS = "attempts";
+    private static final String ERROR = "error";
+
+    @BsonId
+    private ObjectId id;
+    private String jobId;
+    // refresh lease token the job was queued under, null without leader election
+    private Long fencingToken;
+    private String engagementUuid;
+    private long projectId;
+    private String status;
+    private String owner;
+    // when a pending task may be claimed or a claimed task's lease expires
+    private Date available;
+    private int attempts;
+    private String error;
+    private Date created;
+
+    /**
+     * Creates the index tasks are claimed by and the TTL index that removes tasks
+     * a day after they were queued.
+     */
+    public static void createIndexes() {
+        MongoCollection<RefreshTask> collection = mongoCollection();
+        collection.createIndex(Indexes.ascending(STATUS, AVAILABLE));
+        collection.createIndex(Indexes.ascending("created"), new IndexOptions().expireAfter(1L, TimeUnit.DAYS));
+    }
+
+    /**
+     * Queues a task for each engagement and returns the number queued.
+     *
+     * @param jobId
+     * @param fencingToken
+     * @param engagements
+     * @return
+     */
+    public static int enqueue(String jobId, Long fencingToken, List<Engagement> engagements) {
+
+        if (engagements.isEmpty()) {
+            return 0;
+        }
+
+        Date now = new Date();
+        persist(engagements.stream()
+                .map(e -> RefreshTask.builder().jobId(jobId).fencingToken(fencingToken).engagementUuid(e.getUuid()).projectId(e.getProjectId())
+                        .status(PENDING).available(now).created(now).build())
+                .collect(Collectors.toList()));
+
+        return engagements.size();
+    }
+
+    /**
+     * Claims the oldest task that is pending or whose lease has expired, and
+     * counts the attempt.
+     *
+     * @param owner
+     * @param lease
+     * @return
+     */
+    public static Optional<RefreshTask> claim(String owner, Duration lease) {
+
+        MongoCollection<RefreshTask> collection = mongoCollection();
+        Date now = new Date();
+
+        return Optional.ofNullable(collection.findOneAndUpdate(
+                Filters.and(Filters.in(STATUS, PENDING, CLAIMED), Filters.lte(AVAILABLE, now)),
+                Updates.combine(Updates.set(STATUS, CLAIMED), Updates.set(OWNER, owner),
+                        Updates.set(AVAILABLE, new Date(now.getTime() + lease.toMillis())), Updates.inc(ATTEMPTS, 1)),
+                new FindOneAndUpdateOptions().sort(Sorts.ascending(ID)).returnDocument(ReturnDocument.AFTER)));
+    }
+
+    /**
+     * Extends the leases of the owner's claimed tasks.
+     *
+     * @param owner
+     * @param ids
+     * @param lease
+     */
+    public static void heartbeat(String owner, Collection<ObjectId> ids, Duration lease) {
+        if (!ids.isEmpty()) {
+            MongoCollection<RefreshTask> collection = mongoCollection();
+            collection.updateMany(Filters.and(Filters.in(ID, ids), Filters.eq(OWNER, owner), Filters.eq(STATUS, CLAIMED)),
+                    Updates.set(AVAILABLE, new Date(System.currentTimeMillis() + lease.toMillis())));
+        }
+    }
+
+    /**
+     * Returns true if the task is still claimed by this attempt.
+     *
+     * @return
+     */
+    public boolean isClaimed() {
+        MongoCollection<RefreshTask> collection = mongoCollection();
+        return collection.countDocuments(Filters.and(claimFilter(), Filters.gt(AVAILABLE, new Date()))) > 0;
+    }
+
+    /**
+     * Marks the task done. Returns false if the claim was lost.
+     *
+     * @return
+     */
+    public boolean complete() {
+        return finish(Updates.set(STATUS, DONE));
+    }
+
+    /**
+     * Marks the task failed for good. Returns false if the claim was lost.
+     *
+     * @param error
+     * @return
+     */
+    public boolean fail(String error) {
+        return finish(Updates.combine(Updates.set(STATUS, FAILED), Updates.set(ERROR, error)));
+    }
+
+    /**
+     * Marks the task finished without reloading, as the refresh it was queued by
+     * has been superseded by a newer leader. Returns false if the claim was lost.
+     *
+     * @return
+     */
+    public boolean supersede() {
+        return finish(Updates.set(STATUS, SUPERSEDED));
+    }
+
+    /**
+     * Returns the task to the queue to be claimed again after the delay. Returns
+     * false if the claim was lost.
+     *
+     * @param error
+     * @param delay
+     * @return
+     */
+    public boolean retryAfter(String error, Duration delay) {
+        return finish(Updates.combine(Updates.set(STATUS, PENDING), Updates.set(ERROR, error),
+                Updates.set(AVAILABLE, new Date(System.currentTimeMillis() + delay.toMillis()))));
+    }
+
+    /**
+     * Returns the owner's claimed tasks to the queue so they can be claimed
+     * straight away.
+     *
+     * @param owner
+     */
+    public static void releaseAll(String owner) {
+        MongoCollection<RefreshTask> collection = mongoCollection();
+        collection.updateMany(Filters.and(Filters.eq(OWNER, owner), Filters.eq(STATUS, CLAIMED)),
+                Updates.combine(Updates.set(STATUS, PENDING), Updates.set(AVAILABLE, new Date())));
+    }
+
+    /**
+     * Returns the number of tasks of the job in the given status.
+     *
+     * @param jobId
+     * @param status
+     * @return
+     */
+    public static long countByJobAndStatus(String jobId, String status) {
+        return count("jobId = ?1 and status = ?2", jobId, status);
+    }
+
+    private boolean finish(Bson update) {
+        MongoCollection<RefreshTask> collection = mongoCollection();
+        return collection.updateOne(claimFilter(), update).getModifiedCount() > 0;
+    }
+
+    private Bson claimFilter() {
+        return Filters.and(Filters.eq(ID, id), Filters.eq(OWNER, owner), Filters.eq(STATUS, CLAIMED),
+                Filters.eq(ATTEMPTS, attempts));
+    }
+
+}
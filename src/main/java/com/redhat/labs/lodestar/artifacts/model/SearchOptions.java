@@ -0,0 +1,50 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import javax.ws.rs.QueryParam;
+
+import org.bson.Document;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class SearchOptions extends GetOptions {
+
+    @Parameter(name = "search", required = true, description = "words or \"quoted phrases\" to match against title and description. Prefix a word with - to exclude it")
+    @QueryParam("search")
+    private String search;
+
+    @Parameter(name = "page", description = "0 based index of page of results to return")
+    @QueryParam("page")
+    private int page;
+
+    @Parameter(name = "pageSize", description = "number of results to return per page")
+    @QueryParam("pageSize")
+    private int pageSize;
+
+    public int getPage() {
+        return page < 0 ? 0 : page;
+    }
+
+    public int getPageSize() {
+        return pageSize < 1 ? 20 : pageSize;
+    }
+
+    /**
+     * Returns the text search query combined with any engagement, type and region
+     * filters.
+     * 
+     * @return
+     */
+    @Override
+    public Document toFilter() {
+        return super.toFilter().append("$text", new Document("$search", search));
+    }
+
+}
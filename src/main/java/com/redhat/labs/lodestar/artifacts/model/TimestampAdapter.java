@@ -0,0 +1,23 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.Instant;
+
+import javax.json.bind.adapter.JsonbAdapter;
+
+/**
+ * Keeps {@link Artifact} timestamps in the JSON string format they had before
+ * they were stored as dates.
+ */
+public class TimestampAdapter implements JsonbAdapter<Instant, String> {
+
+    @Override
+    public String adaptToJson(Instant instant) {
+        return Timestamps.format(instant);
+    }
+
+    @Override
+    public Instant adaptFromJson(String value) {
+        return Timestamps.parse(value);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.redhat.labs.lodestar.artifacts.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Converts {@link Artifact} timestamps to and from the strings used in the
+ * artifacts file and the API, e.g. {@code 2021-06-01T14:30:00.123}, which are
+ * UTC without an offset. Parsing also accepts an offset or zone, and a plain
+ * date as the start of that day.
+ *
+ * Timestamps are kept to the millisecond, the precision of a BSON date.
+ */
+public final class Timestamps {
+
+    private Timestamps() {
+    }
+
+    /**
+     * Returns the current time truncated to milliseconds.
+     * 
+     * @return
+     */
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Parses the timestamp, treating it as UTC if it has no offset.
+     * 
+     * @param value
+     * @return
+     * @throws java.time.format.DateTimeParseException if it is not an ISO date or
+     *                                                 date time
+     */
+    public static Instant parse(String value) {
+
+        String trimmed = value.trim();
+        if (trimmed.indexOf('T') < 0) {
+            return LocalDate.parse(trimmed).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(trimmed, OffsetDateTime::from,
+                LocalDateTime::from);
+        Instant instant = parsed instanceof OffsetDateTime ? ((OffsetDateTime) parsed).toInstant()
+                : ((LocalDateTime) parsed).toInstant(ZoneOffset.UTC);
+
+        return instant.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Formats the timestamp as UTC without an offset.
+     * 
+     * @param instant
+     * @return
+     */
+    public static String format(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toString();
+    }
+
+}
@@ -35,6 +35,8 @@ public class File {
     private String content;
     @JsonbProperty("commit_message")
     private String commitMessage;
+    @JsonbProperty("blob_id")
+    private String blobId;
 
     public void encodeFileAttributes() {
 
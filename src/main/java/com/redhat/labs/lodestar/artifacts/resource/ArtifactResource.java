@@ -4,20 +4,39 @@ import java.util.*;
 
 import javax.inject.Inject;
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
 import javax.ws.rs.BeanParam;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChanges;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactDiffSummary;
+import com.redhat.labs.lodestar.artifacts.model.EngagementArtifacts;
+import com.redhat.labs.lodestar.artifacts.model.EngagementSyncState;
+import com.redhat.labs.lodestar.artifacts.model.SearchOptions;
 import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
+import com.redhat.labs.lodestar.artifacts.model.RefreshJob;
+import com.redhat.labs.lodestar.artifacts.metrics.ServerTimed;
+import com.redhat.labs.lodestar.artifacts.service.ArtifactChangeLog;
+import com.redhat.labs.lodestar.artifacts.service.ArtifactEventStream;
 import com.redhat.labs.lodestar.artifacts.service.ArtifactService;
+import com.redhat.labs.lodestar.artifacts.tracing.Traced;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
@@ -30,10 +49,18 @@ import com.redhat.labs.lodestar.artifacts.model.GetOptions;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Artifacts", description = "Artifact API")
+@Traced
+@ServerTimed
 public class ArtifactResource {
 
     @Inject
     ArtifactService service;
+
+    @Inject
+    ArtifactChangeLog changeLog;
+
+    @Inject
+    ArtifactEventStream events;
     
     @PUT
     @APIResponses(value = {
@@ -43,11 +70,27 @@ public class ArtifactResource {
     @Path("/engagement/uuid/{engagementUuid}/{region}")
     public Response processEngagementArtifacts(@Valid List<Artifact> artifacts, @PathParam(value="engagementUuid") String engagementUuid,
             @PathParam(value="region") String region, @QueryParam("authorEmail") Optional<String> authorEmail,
-            @QueryParam("authorName") Optional<String> authorName) {
+            @QueryParam("authorName") Optional<String> authorName,
+            @Parameter(description = "return only the uuids of created, updated and deleted artifacts instead of the full list")
+            @QueryParam("summary") boolean summary) {
+
+        ArtifactDiffSummary diff = service.updateArtifacts(engagementUuid, region, artifacts, authorEmail, authorName);
 
-        service.updateArtifacts(engagementUuid, region, artifacts, authorEmail, authorName);
-        return Response.ok(service.getArtifactsByEngagement(engagementUuid)).build();
+        if (summary) {
+            return Response.ok(diff).build();
+        }
 
+        return streamEngagementArtifacts(engagementUuid);
+
+    }
+
+    @GET
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "All artifacts for the engagement are returned.") })
+    @Operation(summary = "All artifacts for the engagement are streamed, sorted descending by modified.")
+    @Path("/engagement/uuid/{engagementUuid}")
+    public Response getEngagementArtifacts(@PathParam(value="engagementUuid") String engagementUuid) {
+        return streamEngagementArtifacts(engagementUuid);
     }
 
     @GET
@@ -65,6 +108,23 @@ public class ArtifactResource {
 
     }
 
+    @GET
+    @Path("/search")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Artifacts matching the search are returned, most relevant first."),
+            @APIResponse(responseCode = "400", description = "No search text provided.") })
+    @Operation(summary = "Full text search of artifact title and description.")
+    public Response searchArtifacts(@BeanParam SearchOptions options) {
+
+        List<Artifact> artifacts = service.searchArtifacts(options);
+        ArtifactCount count = service.countSearchArtifacts(options);
+
+        return Response.ok(artifacts).header("x-page", options.getPage()).header("x-per-page", options.getPageSize())
+                .header("x-total-artifacts", count.getCount())
+                .header("x-total-pages", (count.getCount() / options.getPageSize()) + 1).build();
+
+    }
+
     @GET
     @Path("/count")
     @APIResponses(value = {
@@ -86,6 +146,55 @@ public class ArtifactResource {
         return service.getEngagementCounts();
     }
 
+    @POST
+    @Path("engagements")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Artifacts grouped by engagement are returned."),
+            @APIResponse(responseCode = "400", description = "Too many engagements requested.") })
+    @Operation(summary = "Count and most recently modified artifacts for each engagement uuid in the request body.")
+    public List<EngagementArtifacts> getArtifactsByEngagements(@NotNull List<String> engagementUuids,
+            @Parameter(description = "maximum number of artifacts returned per engagement")
+            @QueryParam("limit") int limit) {
+        return service.getArtifactsByEngagements(engagementUuids, limit);
+    }
+
+    @GET
+    @Path("engagements/unhealthy")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Engagements whose last reload from git failed.") })
+    @Operation(summary = "Engagements whose artifacts may be stale, with their last error and next retry.")
+    public List<EngagementSyncState> getUnhealthyEngagements() {
+        return service.getUnhealthyEngagements();
+    }
+
+    @GET
+    @Path("/changes")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Artifacts upserted and deleted since the token, and the next token."),
+            @APIResponse(responseCode = "400", description = "Invalid token."),
+            @APIResponse(responseCode = "410", description = "Changes since the token are no longer kept. Reload all artifacts.") })
+    @Operation(summary = "Changes to artifacts since a token. Without a token only the current token is returned.")
+    public ArtifactChanges getChanges(
+            @Parameter(description = "next token from the previous response") @QueryParam("since") String since,
+            @Parameter(description = "maximum number of changes to return") @QueryParam("limit") int limit) {
+        return changeLog.changesSince(since, limit);
+    }
+
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "A stream of upsert, delete and resync events."),
+            @APIResponse(responseCode = "503", description = "Too many subscribers.") })
+    @Operation(summary = "Streams artifact changes as they happen. Upserts carry the artifact and deletes a tombstone. After a resync event reload all artifacts.")
+    public void streamEvents(@Context SseEventSink sink, @Context Sse sse,
+            @Parameter(description = "only changes to artifacts of this engagement") @QueryParam("engagementUuid") String engagementUuid,
+            @Parameter(description = "only changes to artifacts of this type") @QueryParam("type") String type,
+            @Parameter(description = "only changes to artifacts in these regions") @QueryParam("region") List<String> regions,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId) {
+        events.subscribe(sink, sse, engagementUuid, type, regions, lastEventId);
+    }
+
     @GET
     @Path("/types")
     public Set<String> getAllTypes(@QueryParam("regions") List<String> regions) {
@@ -96,18 +205,33 @@ public class ArtifactResource {
         return types;
     }
 
+    @GET
+    @Path("/refresh")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The latest refresh job."),
+            @APIResponse(responseCode = "404", description = "No refresh job has run.") })
+    @Operation(summary = "Returns the progress of the latest refresh")
+    public RefreshJob getRefreshJob() {
+        return service.getLatestRefreshJob();
+    }
+
     @PUT
     @Path("/refresh")
     @APIResponses(value = {
-            @APIResponse(responseCode = "202", description = "The request was accepted and will be processed.") })
+            @APIResponse(responseCode = "202", description = "The request was accepted and will be processed."),
+            @APIResponse(responseCode = "409", description = "A refresh is already running on another replica.") })
     @Operation(summary = "Refreshes database with data in git, purging first")
     public Response refresh() {
 
-        service.purge();
-        long count = service.refresh();
+        long count = service.purgeAndRefresh();
 
         return Response.accepted().header("x-total-artifacts", count).build();
 
     }
 
+    private Response streamEngagementArtifacts(String engagementUuid) {
+        StreamingOutput stream = service.streamArtifactsByEngagement(engagementUuid);
+        return Response.ok(stream, MediaType.APPLICATION_JSON).build();
+    }
+
 }
@@ -0,0 +1,132 @@
+package com.redhat.labs.lodestar.artifacts.resource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import com.redhat.labs.lodestar.artifacts.jfr.FlightRecordings;
+import com.redhat.labs.lodestar.artifacts.model.RecordingStatus;
+
+/**
+ * Flight recording controls. Recordings hold details of the running process,
+ * so the endpoints are off unless enabled and then need the configured token
+ * as a bearer token.
+ */
+@Path("/api/diagnostics/recording")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "Diagnostics", description = "Diagnostics API")
+public class DiagnosticsResource {
+
+    private static final String BEARER = "Bearer ";
+
+    @ConfigProperty(name = "jfr.endpoint.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "jfr.endpoint.token")
+    Optional<String> token;
+
+    @Inject
+    FlightRecordings recordings;
+
+    @POST
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The flight recording is running."),
+            @APIResponse(responseCode = "400", description = "The duration is not an ISO-8601 duration.") })
+    @Operation(summary = "Starts a flight recording if one is not already running")
+    public RecordingStatus startRecording(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization,
+            @Parameter(description = "ISO-8601 duration after which the recording stops, such as PT10M")
+            @QueryParam("duration") Optional<String> duration) {
+        checkEnabled(authorization);
+        return recordings.start(duration.map(DiagnosticsResource::parseDuration));
+    }
+
+    @GET
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The status of the flight recording.") })
+    @Operation(summary = "Returns the status of the flight recording")
+    public RecordingStatus getRecording(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization) {
+        checkEnabled(authorization);
+        return recordings.status();
+    }
+
+    @GET
+    @Path("/dump")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The events recorded so far as a .jfr file."),
+            @APIResponse(responseCode = "404", description = "No flight recording has been started.") })
+    @Operation(summary = "Dumps the flight recording without stopping it")
+    public Response dumpRecording(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization)
+            throws IOException {
+        checkEnabled(authorization);
+
+        java.nio.file.Path file = recordings.dump();
+        StreamingOutput stream = output -> {
+            try {
+                Files.copy(file, output);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+
+        return Response.ok(stream).header("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"")
+                .build();
+    }
+
+    @DELETE
+    @APIResponses(value = {
+            @APIResponse(responseCode = "204", description = "The flight recording has been stopped.") })
+    @Operation(summary = "Stops and discards the flight recording")
+    public void stopRecording(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization) {
+        checkEnabled(authorization);
+        recordings.stop();
+    }
+
+    private void checkEnabled(String authorization) {
+
+        // without a token the endpoints stay hidden even when enabled
+        if (!enabled || token.filter(t -> !t.isBlank()).isEmpty()) {
+            throw new WebApplicationException(404);
+        }
+
+        byte[] expected = (BEARER + token.get()).getBytes(StandardCharsets.UTF_8);
+        byte[] actual = null == authorization ? new byte[0] : authorization.getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new WebApplicationException(401);
+        }
+    }
+
+    private static Duration parseDuration(String duration) {
+        try {
+            return Duration.parse(duration);
+        } catch (DateTimeParseException e) {
+            throw new WebApplicationException("Invalid duration " + duration, 400);
+        }
+    }
+
+}
@@ -1,28 +1,55 @@
 package com.redhat.labs.lodestar.artifacts.rest.client;
 
-import java.util.List;
-
 import javax.ws.rs.*;
+import javax.ws.rs.core.Response;
 
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import com.redhat.labs.lodestar.artifacts.metrics.ClientRejections;
+import com.redhat.labs.lodestar.artifacts.metrics.RestClientTimingFilter;
+import com.redhat.labs.lodestar.artifacts.metrics.TimedClient;
+import com.redhat.labs.lodestar.artifacts.tracing.RestClientTracingFilter;
+import com.redhat.labs.lodestar.artifacts.tracing.TracedClient;
+
 import com.redhat.labs.lodestar.artifacts.model.Engagement;
 
+import io.smallrye.faulttolerance.api.CircuitBreakerName;
+
 @Produces("application/json")
 @RegisterRestClient(configKey = "engagement.api")
 @RegisterProvider(value = GitLabApiExceptionMapper.class, priority = 50)
+@RegisterProvider(RestClientTimingFilter.class)
+@RegisterProvider(RestClientTracingFilter.class)
 @Path("/api/v2/engagements")
+@CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 30000, successThreshold = 2, skipOn = ClientErrorException.class)
+@Bulkhead(10)
+@ClientRejections
+@TracedClient
+@TimedClient
 public interface EngagementApiRestClient {
 
+    String GET_ENGAGEMENT_BREAKER = "engagement-api-get-engagement";
+    String GET_ENGAGEMENT_PAGE_BREAKER = "engagement-api-get-engagement-page";
+    String UPDATE_ENGAGEMENT_BREAKER = "engagement-api-update-engagement";
+
     @GET
+    @CircuitBreakerName(GET_ENGAGEMENT_BREAKER)
     @Path("{uuid}")
     Engagement getEngagementByUuid(@PathParam("uuid") String engagementUuid);
 
+    /**
+     * Returns a page of engagements. The response carries a Link header with a
+     * next relation while there are more pages.
+     */
     @GET
-    List<Engagement> getAllEngagements();
+    @CircuitBreakerName(GET_ENGAGEMENT_PAGE_BREAKER)
+    Response getEngagementPage(@QueryParam("page") int page, @QueryParam("perPage") int perPage);
 
     @PUT
+    @CircuitBreakerName(UPDATE_ENGAGEMENT_BREAKER)
     @Path("{uuid}/artifacts/{count}")
     void updateEngagement(@PathParam("uuid") String engagementUuid, @PathParam("count") int count);
 
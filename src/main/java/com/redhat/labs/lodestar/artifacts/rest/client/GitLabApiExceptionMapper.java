@@ -1,8 +1,9 @@
 package com.redhat.labs.lodestar.artifacts.rest.client;
 
-import java.io.ByteArrayInputStream;
-
 import javax.annotation.Priority;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.ServerErrorException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 
@@ -17,23 +18,36 @@ public class GitLabApiExceptionMapper implements ResponseExceptionMapper<Runtime
 
         String msg = getBody(response);
 
+        // client errors are not failures of the remote service so they must not open its circuit breaker
+        if (status >= 400 && status < 500) {
+            return new ClientErrorException(msg, status);
+        }
+
+        if (status >= 500) {
+            return new ServerErrorException(msg, status);
+        }
+
         return new WebApplicationException(msg, status);
 
     }
 
     private String getBody(Response response) {
 
-        if (response.hasEntity()) {
-
-            ByteArrayInputStream is = (ByteArrayInputStream) response.getEntity();
-            byte[] bytes = new byte[is.available()];
-            is.read(bytes, 0, is.available());
-            return new String(bytes);
+        if (!response.hasEntity()) {
+            return null;
+        }
 
+        // a response aborted locally, such as by the rate limit filter, may still hold the entity it was built with
+        if (response.getEntity() instanceof String) {
+            return (String) response.getEntity();
         }
 
-        return null;
+        try {
+            return response.readEntity(String.class);
+        } catch (IllegalStateException | ProcessingException e) {
+            return null;
+        }
 
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.redhat.labs.lodestar.artifacts.rest.client;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import io.quarkus.arc.Arc;
+
+/**
+ * Holds each GitLab call until {@link GitlabRateLimiter} has a token for it and
+ * reports the rate limit headers of every response back to it. Calls that
+ * would wait longer than the maximum are answered locally with a 429.
+ */
+public class GitlabRateLimitFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    static final String REMAINING = "RateLimit-Remaining";
+    static final String RESET = "RateLimit-Reset";
+
+    private static final String ABORTED = GitlabRateLimitFilter.class.getName() + ".aborted";
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+
+        if (!limiter().acquire()) {
+            requestContext.setProperty(ABORTED, Boolean.TRUE);
+            requestContext.abortWith(Response.status(GitlabRateLimiter.TOO_MANY_REQUESTS)
+                    .entity("Waiting for the GitLab rate limit").build());
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+
+        if (null != requestContext.getProperty(ABORTED)) {
+            return;
+        }
+
+        limiter().onResponse(responseContext.getStatus(), responseContext.getHeaderString(REMAINING),
+                responseContext.getHeaderString(RESET), responseContext.getHeaderString(HttpHeaders.RETRY_AFTER));
+    }
+
+    GitlabRateLimiter limiter() {
+        return Arc.container().instance(GitlabRateLimiter.class).get();
+    }
+
+}
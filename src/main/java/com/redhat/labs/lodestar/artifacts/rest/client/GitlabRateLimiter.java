@@ -0,0 +1,291 @@
+package com.redhat.labs.lodestar.artifacts.rest.client;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Paces calls to GitLab so they stay inside its rate limit.
+ *
+ * Every call takes a token from a bucket shared by all callers. The bucket
+ * refills at the configured rate, lowered to whatever the RateLimit-Remaining
+ * and RateLimit-Reset headers say is left of the current window. A 429 stops
+ * all calls until Retry-After (or RateLimit-Reset) has passed.
+ *
+ * Refresh concurrency follows AIMD: the limit grows by one after a limit's worth
+ * of successful calls and halves on each 429.
+ */
+@ApplicationScoped
+public class GitlabRateLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitlabRateLimiter.class);
+
+    static final int TOO_MANY_REQUESTS = 429;
+    private static final long DEFAULT_PAUSE_SECONDS = 1;
+
+    @ConfigProperty(name = "gitlab.rate.limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "gitlab.rate.limit.requests.per.second", defaultValue = "20")
+    double maxRate;
+
+    @ConfigProperty(name = "gitlab.rate.limit.burst", defaultValue = "10")
+    int burst;
+
+    @ConfigProperty(name = "gitlab.rate.limit.max.wait", defaultValue = "30s")
+    Duration maxWait;
+
+    @ConfigProperty(name = "gitlab.refresh.concurrency.max", defaultValue = "8")
+    int maxConcurrency;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter throttled;
+
+    // token bucket, guarded by this
+    private double tokens;
+    private double rate;
+    private long refilled;
+    private long pausedUntil;
+
+    // concurrency limit, guarded by this
+    private int limit;
+    private int inFlight;
+    private int successes;
+
+    @PostConstruct
+    void init() {
+
+        tokens = burst;
+        rate = maxRate;
+        refilled = System.nanoTime();
+        pausedUntil = refilled;
+        limit = maxConcurrency;
+
+        if (null == registry) {
+            return;
+        }
+
+        throttled = Counter.builder("artifacts.gitlab.throttled")
+                .description("GitLab calls rejected with 429 Too Many Requests").register(registry);
+        Gauge.builder("artifacts.gitlab.rate", this, GitlabRateLimiter::getRate)
+                .description("GitLab calls allowed per second").register(registry);
+        Gauge.builder("artifacts.gitlab.concurrency.limit", this, GitlabRateLimiter::getConcurrencyLimit)
+                .description("Concurrent GitLab calls allowed during refresh").register(registry);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized int getConcurrencyLimit() {
+        return limit;
+    }
+
+    /**
+     * Waits for a token. Returns false without taking one if the wait would be
+     * longer than the configured maximum.
+     *
+     * @return
+     */
+    public boolean acquire() {
+
+        if (!enabled) {
+            return true;
+        }
+
+        long wait = reserve(System.nanoTime());
+        if (wait < 0) {
+            return false;
+        }
+
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes a token and returns the nanoseconds to wait before using it, or -1 if
+     * that is longer than the maximum wait.
+     *
+     * @param now
+     * @return
+     */
+    synchronized long reserve(long now) {
+
+        tokens = Math.min(burst, tokens + (now - refilled) / 1e9 * rate);
+        refilled = now;
+
+        long wait = Math.max(0, pausedUntil - now);
+        double available = tokens - 1;
+        if (available < 0) {
+            wait = Math.max(wait, (long) (-available / rate * 1e9));
+        }
+
+        if (wait > maxWait.toNanos()) {
+            return -1;
+        }
+
+        tokens = available;
+        return wait;
+    }
+
+    /**
+     * Waits until a 429 pause has passed and the bucket has a token again, so a
+     * retry is not answered locally with another 429. Returns false if
+     * interrupted.
+     *
+     * @return
+     */
+    public boolean awaitResume() {
+
+        if (!enabled) {
+            return true;
+        }
+
+        long wait = untilResume(System.nanoTime());
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the nanoseconds until calls are no longer paused and a token is
+     * available, without taking it.
+     *
+     * @param now
+     * @return
+     */
+    synchronized long untilResume(long now) {
+        double available = Math.min(burst, tokens + (now - refilled) / 1e9 * rate);
+        long refill = available >= 1 ? 0 : (long) ((1 - available) / rate * 1e9);
+        return Math.max(Math.max(0, pausedUntil - now), refill);
+    }
+
+    /**
+     * Adjusts the rate and concurrency limit from a GitLab response.
+     *
+     * @param status
+     * @param remaining RateLimit-Remaining header
+     * @param reset     RateLimit-Reset header, epoch seconds
+     * @param retryAfter Retry-After header, seconds
+     */
+    public void onResponse(int status, String remaining, String reset, String retryAfter) {
+        if (enabled) {
+            onResponse(status, remaining, reset, retryAfter, System.nanoTime(), System.currentTimeMillis());
+        }
+    }
+
+    synchronized void onResponse(int status, String remaining, String reset, String retryAfter, long now,
+            long epochMillis) {
+
+        Long resetIn = parse(reset).map(r -> Math.max(0, r - epochMillis / 1000)).orElse(null);
+
+        if (status == TOO_MANY_REQUESTS) {
+            long pause = parse(retryAfter).orElse(null == resetIn ? DEFAULT_PAUSE_SECONDS : resetIn);
+            pausedUntil = Math.max(pausedUntil, now + TimeUnit.SECONDS.toNanos(Math.max(pause, DEFAULT_PAUSE_SECONDS)));
+            tokens = Math.min(tokens, 0);
+            limit = Math.max(1, limit / 2);
+            successes = 0;
+            if (null != throttled) {
+                throttled.increment();
+            }
+            LOGGER.warn("GitLab rate limit hit. Pausing calls for {}s, refresh concurrency now {}", pause, limit);
+            return;
+        }
+
+        Long left = parse(remaining).orElse(null);
+        if (null != left && null != resetIn) {
+            rate = Math.max(0.1, Math.min(maxRate, (double) left / Math.max(1, resetIn)));
+            if (left == 0) {
+                pausedUntil = Math.max(pausedUntil, now + TimeUnit.SECONDS.toNanos(Math.max(1, resetIn)));
+            }
+        } else {
+            rate = maxRate;
+        }
+
+        if (status < 400 && ++successes >= limit) {
+            limit = Math.min(maxConcurrency, limit + 1);
+            successes = 0;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Runs the task once fewer than the current concurrency limit of tasks are
+     * running.
+     *
+     * @param <T>
+     * @param task
+     * @return
+     */
+    public <T> T limited(Supplier<T> task) {
+
+        synchronized (this) {
+            while (inFlight >= limit) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for a GitLab slot", e);
+                }
+            }
+            inFlight++;
+        }
+
+        try {
+            return task.get();
+        } finally {
+            synchronized (this) {
+                inFlight--;
+                notifyAll();
+            }
+        }
+    }
+
+    private static Optional<Long> parse(String value) {
+
+        if (null == value || value.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            // Retry-After may also be an http date, which GitLab does not send
+            return Optional.empty();
+        }
+    }
+
+}
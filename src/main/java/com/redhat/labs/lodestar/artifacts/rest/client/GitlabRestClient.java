@@ -1,37 +1,73 @@
 package com.redhat.labs.lodestar.artifacts.rest.client;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Response;
 
 import com.redhat.labs.lodestar.artifacts.model.gitlab.Commit;
 import org.apache.http.NoHttpResponseException;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.rest.client.annotation.RegisterClientHeaders;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import com.redhat.labs.lodestar.artifacts.metrics.ClientRejections;
+import com.redhat.labs.lodestar.artifacts.metrics.RestClientTimingFilter;
+import com.redhat.labs.lodestar.artifacts.metrics.TimedClient;
+import com.redhat.labs.lodestar.artifacts.tracing.RestClientTracingFilter;
+import com.redhat.labs.lodestar.artifacts.tracing.TracedClient;
 import com.redhat.labs.lodestar.artifacts.model.gitlab.File;
 
+import io.smallrye.faulttolerance.api.CircuitBreakerName;
+
 @Retry(maxRetries = 5, delay = 1200, retryOn = NoHttpResponseException.class, abortOn = WebApplicationException.class)
+@CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 30000, successThreshold = 2, skipOn = ClientErrorException.class)
+@Bulkhead(10)
+@ClientRejections
+@TracedClient
+@TimedClient
 @Path("/api/v4")
 @RegisterRestClient(configKey = "gitlab.api")
 @RegisterClientHeaders(GitlabTokenFactory.class)
 @RegisterProvider(value = GitLabApiExceptionMapper.class, priority = 50)
+@RegisterProvider(value = GitlabRateLimitFilter.class, priority = 1000)
+@RegisterProvider(RestClientTimingFilter.class)
+@RegisterProvider(RestClientTracingFilter.class)
 @Produces("application/json")
 public interface GitlabRestClient {
 
+    String CREATE_COMMIT_BREAKER = "gitlab-create-commit";
+    String GET_FILE_BREAKER = "gitlab-get-file";
+    String GET_FILE_HEAD_BREAKER = "gitlab-get-file-head";
+
+    String BLOB_ID_HEADER = "X-Gitlab-Blob-Id";
+
     /*
      * Files
      */
 
     @POST
+    @CircuitBreakerName(CREATE_COMMIT_BREAKER)
     @Path("/projects/{id}/repository/commits")
     @Produces("application/json")
     void createCommit(@PathParam("id") long projectId, Commit commit);
 
     @GET
+    @CircuitBreakerName(GET_FILE_BREAKER)
     @Path("/projects/{id}/repository/files/{file_path}")
     @Produces("application/json")
     File getFile(@PathParam("id") @Encoded Long projectId, @PathParam("file_path") @Encoded String filePath,
             @QueryParam("ref") @Encoded String ref);
 
+    /**
+     * Returns the file's metadata, such as {@link #BLOB_ID_HEADER}, in the response
+     * headers without its content.
+     */
+    @HEAD
+    @CircuitBreakerName(GET_FILE_HEAD_BREAKER)
+    @Path("/projects/{id}/repository/files/{file_path}")
+    Response getFileHead(@PathParam("id") @Encoded Long projectId, @PathParam("file_path") @Encoded String filePath,
+            @QueryParam("ref") @Encoded String ref);
+
 }
@@ -0,0 +1,145 @@
+package com.redhat.labs.lodestar.artifacts.rest.client;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import org.eclipse.microprofile.rest.client.spi.RestClientListener;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Gives each REST client its own pool of keep-alive connections so calls reuse
+ * open connections, and their TLS sessions, instead of opening new ones.
+ *
+ * Pools are configured per client config key, e.g. {@code gitlab.api.pool.*},
+ * and publish their usage as {@code httpcomponents_httpclient_pool_*} metrics
+ * along with a count of the connections each client has opened.
+ *
+ * Registered through {@code META-INF/services} as the clients are built by
+ * RESTEasy rather than CDI.
+ */
+public class PooledClientListener implements RestClientListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledClientListener.class);
+
+    private static final String HTTP_ENGINE = "resteasy.httpEngine";
+
+    @Override
+    public void onNewClient(Class<?> serviceInterface, RestClientBuilder builder) {
+
+        RegisterRestClient registration = serviceInterface.getAnnotation(RegisterRestClient.class);
+        if (null == registration || registration.configKey().isBlank()) {
+            return;
+        }
+
+        String configKey = registration.configKey();
+        Config config = ConfigProvider.getConfig();
+        if (!config.getOptionalValue(configKey + ".pool.enabled", Boolean.class).orElse(true)) {
+            return;
+        }
+
+        builder.property(HTTP_ENGINE, new ApacheHttpClient43Engine(
+                createHttpClient(serviceInterface.getSimpleName(), configKey, config), true));
+    }
+
+    CloseableHttpClient createHttpClient(String client, String configKey, Config config) {
+
+        int maxConnections = config.getOptionalValue(configKey + ".pool.max.connections", Integer.class).orElse(20);
+        int maxPerRoute = config.getOptionalValue(configKey + ".pool.max.per.route", Integer.class)
+                .orElse(maxConnections);
+        Duration keepAlive = config.getOptionalValue(configKey + ".pool.keep.alive", Duration.class)
+                .orElse(Duration.ofSeconds(60));
+        Duration idleTimeout = config.getOptionalValue(configKey + ".pool.idle.timeout", Duration.class)
+                .orElse(Duration.ofSeconds(30));
+        Duration checkoutTimeout = config.getOptionalValue(configKey + ".pool.checkout.timeout", Duration.class)
+                .orElse(Duration.ofSeconds(5));
+        int connectTimeout = config.getOptionalValue(configKey + "/mp-rest/connectTimeout", Integer.class).orElse(-1);
+        int readTimeout = config.getOptionalValue(configKey + "/mp-rest/readTimeout", Integer.class).orElse(-1);
+
+        Counter opened = Counter.builder("artifacts.client.connections.opened")
+                .description("Connections opened by each REST client").tag("client", client)
+                .register(Metrics.globalRegistry);
+
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connections = (route, connectionConfig) -> {
+            opened.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, connectionConfig);
+        };
+
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory()).build(),
+                connections);
+        pool.setMaxTotal(maxConnections);
+        pool.setDefaultMaxPerRoute(maxPerRoute);
+        // a pooled connection the server closed while idle is checked before reuse
+        pool.setValidateAfterInactivity(1000);
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, client).bindTo(Metrics.globalRegistry);
+
+        LOGGER.debug("{} pool: {} connections, {} per route, keep alive {}, idle timeout {}", client,
+                maxConnections, maxPerRoute, keepAlive, idleTimeout);
+
+        return HttpClientBuilder.create().setConnectionManager(pool)
+                .setKeepAliveStrategy(keepAlive(keepAlive.toMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(connectTimeout)
+                        .setSocketTimeout(readTimeout).setConnectionRequestTimeout((int) checkoutTimeout.toMillis())
+                        .build())
+                .disableCookieManagement()
+                .build();
+    }
+
+    /**
+     * Keeps connections open for the time the server asks for in its Keep-Alive
+     * header, but never longer than the configured maximum.
+     *
+     * @param maxMillis
+     * @return
+     */
+    static ConnectionKeepAliveStrategy keepAlive(long maxMillis) {
+        return (response, context) -> {
+
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && null != element.getValue()) {
+                    try {
+                        return Math.min(maxMillis, Long.parseLong(element.getValue()) * 1000);
+                    } catch (NumberFormatException e) {
+                        // fall through to the configured maximum
+                    }
+                }
+            }
+
+            return maxMillis;
+        };
+    }
+
+}
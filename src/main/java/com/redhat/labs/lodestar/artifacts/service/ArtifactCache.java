@@ -0,0 +1,319 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactCount;
+import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
+import com.redhat.labs.lodestar.artifacts.model.GetOptions;
+
+import io.quarkus.panache.common.Sort;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Optional in-memory read model of all {@link Artifact}s. When enabled, the
+ * full collection is loaded at startup and indexed by id, engagement, region
+ * and type, with each index kept sorted descending by modified timestamp.
+ * Reads are served from an immutable snapshot that is swapped whenever
+ * engagements change.
+ *
+ * Changed engagements are reloaded when {@link ArtifactChangeBus} publishes
+ * {@link ArtifactsChanged}, so the cache stays current with writes from every
+ * replica when change watching is enabled.
+ *
+ * Cached {@link Artifact} instances are shared between requests and must not be
+ * modified.
+ */
+@ApplicationScoped
+public class ArtifactCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactCache.class);
+
+    private static final String MODIFIED = "modified";
+
+    static final Comparator<Artifact> MODIFIED_DESC = Comparator
+            .comparing(Artifact::getModified, Comparator.nullsLast(Comparator.<Instant>reverseOrder()))
+            .thenComparing(Artifact::getUuid, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    @SuppressWarnings("rawtypes")
+    private static final Map<String, Function<Artifact, Comparable>> FIELDS = Map.of("uuid", Artifact::getUuid,
+            "created", Artifact::getCreated, MODIFIED, Artifact::getModified, "engagementUuid",
+            Artifact::getEngagementUuid, "title", Artifact::getTitle, "description", Artifact::getDescription, "type",
+            Artifact::getType, "linkAddress", Artifact::getLinkAddress, "region", Artifact::getRegion);
+
+    @ConfigProperty(name = "artifacts.cache.enabled", defaultValue = "false")
+    boolean enabled;
+
+    private volatile Snapshot snapshot;
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            reloadAll();
+        }
+    }
+
+    void onChange(@Observes ArtifactsChanged change) {
+
+        if (!isActive()) {
+            return;
+        }
+
+        if (change.isAll()) {
+            reloadAll();
+        } else {
+            reloadEngagements(change.getEngagementUuids());
+        }
+
+    }
+
+    /**
+     * Returns true if reads should be served from the cache.
+     *
+     * @return
+     */
+    public boolean isActive() {
+        return enabled && null != snapshot;
+    }
+
+    /**
+     * Returns the page of {@link Artifact}s matching the {@link GetListOptions},
+     * using the same filter precedence and default sorts as the database queries
+     * in {@link ArtifactService}.
+     *
+     * @param options
+     * @return
+     */
+    public List<Artifact> getArtifacts(GetListOptions options) {
+
+        Sort sort = ArtifactService.querySort(options);
+
+        List<Artifact> artifacts = select(snapshot, options);
+        if (!isSnapshotOrder(sort)) {
+            artifacts = new ArrayList<>(artifacts);
+            artifacts.sort(comparator(sort));
+        }
+
+        int from = options.getPage() * options.getPageSize();
+        if (from >= artifacts.size()) {
+            return new ArrayList<>();
+        }
+
+        return new ArrayList<>(artifacts.subList(from, Math.min(from + options.getPageSize(), artifacts.size())));
+    }
+
+    /**
+     * Returns a {@link ArtifactCount} with the count of {@link Artifact}s matching
+     * the {@link GetOptions}.
+     *
+     * @param options
+     * @return
+     */
+    public ArtifactCount countArtifacts(GetOptions options) {
+        return ArtifactCount.builder().count((long) select(snapshot, options).size()).build();
+    }
+
+    /**
+     * Returns the number of {@link Artifact}s of each type in the given regions, or
+     * in all regions if none are given, sorted descending by count then by type.
+     *
+     * @param regions
+     * @return
+     */
+    public List<ArtifactCount> countArtifactsForEachRegionAndType(List<String> regions) {
+
+        GetOptions options = new GetOptions();
+        options.setRegion(regions);
+
+        Map<String, Long> counts = select(snapshot, options).stream()
+                .collect(Collectors.groupingBy(a -> String.valueOf(a.getType()), Collectors.counting()));
+
+        return counts.entrySet().stream()
+                .map(e -> ArtifactCount.builder().type(e.getKey()).count(e.getValue()).build())
+                .sorted(Comparator.comparing(ArtifactCount::getCount).reversed().thenComparing(ArtifactCount::getType))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of {@link Artifact}s for each engagement uuid.
+     *
+     * @return
+     */
+    public Map<String, Long> countArtifactsForEachEngagement() {
+        Map<String, Long> counts = new HashMap<>();
+        snapshot.byEngagement.forEach((uuid, artifacts) -> counts.put(uuid, (long) artifacts.size()));
+        return counts;
+    }
+
+    /**
+     * Replaces the cached artifacts with the given {@link Collection}.
+     *
+     * @param artifacts
+     */
+    synchronized void load(Collection<Artifact> artifacts) {
+        snapshot = new Snapshot(artifacts);
+    }
+
+    synchronized void reloadAll() {
+        long start = System.currentTimeMillis();
+        List<Artifact> artifacts = Artifact.listAll();
+        load(artifacts);
+        LOGGER.debug("Loaded {} artifacts into cache in {} ms", artifacts.size(), System.currentTimeMillis() - start);
+    }
+
+    synchronized void reloadEngagements(Collection<String> engagementUuids) {
+
+        if (engagementUuids.isEmpty()) {
+            return;
+        }
+
+        Snapshot current = snapshot;
+        Map<ObjectId, Artifact> artifacts = new HashMap<>(current.byId);
+        engagementUuids.forEach(uuid -> current.byEngagement.getOrDefault(uuid, List.of())
+                .forEach(a -> artifacts.remove(a.getId())));
+        Artifact.findAllByEngagementUuidIn(engagementUuids).forEach(a -> artifacts.put(a.getId(), a));
+
+        snapshot = new Snapshot(artifacts.values());
+        LOGGER.trace("Reloaded engagements {} into cache", engagementUuids);
+    }
+
+    /**
+     * Returns the {@link Artifact}s matching the options, sorted descending by
+     * modified timestamp. Engagement uuid is only applied when neither type nor
+     * region is set, matching the database queries.
+     *
+     * @param current
+     * @param options
+     * @return
+     */
+    List<Artifact> select(Snapshot current, GetOptions options) {
+
+        List<Artifact> selected = selectIndexed(current, options);
+        if (!options.hasModifiedRange()) {
+            return selected;
+        }
+
+        Instant since = options.getModifiedSince().orElse(null);
+        Instant before = options.getModifiedBefore().orElse(null);
+        return selected.stream().filter(a -> null != a.getModified())
+                .filter(a -> null == since || !a.getModified().isBefore(since))
+                .filter(a -> null == before || a.getModified().isBefore(before)).collect(Collectors.toList());
+    }
+
+    private List<Artifact> selectIndexed(Snapshot current, GetOptions options) {
+
+        Optional<String> type = options.getType();
+        List<String> regions = options.getRegion();
+
+        if (type.isPresent()) {
+            List<Artifact> byType = current.byType.getOrDefault(type.get(), List.of());
+            if (regions.isEmpty()) {
+                return byType;
+            }
+            Set<String> regionSet = new HashSet<>(regions);
+            return byType.stream().filter(a -> regionSet.contains(a.getRegion())).collect(Collectors.toList());
+        }
+
+        if (!regions.isEmpty()) {
+            List<Artifact> byRegion = new ArrayList<>();
+            regions.stream().distinct().forEach(r -> byRegion.addAll(current.byRegion.getOrDefault(r, List.of())));
+            byRegion.sort(MODIFIED_DESC);
+            return byRegion;
+        }
+
+        return options.getEngagementUuid().map(uuid -> current.byEngagement.getOrDefault(uuid, List.of()))
+                .orElse(current.all);
+    }
+
+    /**
+     * Returns true if the {@link Sort} matches the order the snapshot lists are
+     * kept in, so no sorting is required.
+     *
+     * @param sort
+     * @return
+     */
+    boolean isSnapshotOrder(Sort sort) {
+
+        List<Sort.Column> columns = sort.getColumns();
+
+        if (columns.isEmpty() || columns.size() > 2 || !MODIFIED.equals(columns.get(0).getName())
+                || columns.get(0).getDirection() != Sort.Direction.Descending) {
+            return false;
+        }
+
+        return columns.size() == 1 || ("uuid".equals(columns.get(1).getName())
+                && columns.get(1).getDirection() == Sort.Direction.Ascending);
+    }
+
+    /**
+     * Returns a {@link Comparator} ordering {@link Artifact}s the way the database
+     * would for the given {@link Sort}. Nulls sort first ascending and last
+     * descending. Unknown fields are ignored.
+     *
+     * @param sort
+     * @return
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static Comparator<Artifact> comparator(Sort sort) {
+
+        Comparator<Artifact> comparator = (a, b) -> 0;
+
+        for (Sort.Column column : sort.getColumns()) {
+            Function<Artifact, Comparable> field = FIELDS.get(column.getName());
+            if (null != field) {
+                Comparator<Artifact> next = Comparator.comparing(field, Comparator.nullsFirst(Comparator.naturalOrder()));
+                comparator = comparator.thenComparing(
+                        column.getDirection() == Sort.Direction.Descending ? next.reversed() : next);
+            }
+        }
+
+        return comparator;
+    }
+
+    /**
+     * Immutable indexes over a set of {@link Artifact}s. Every list is sorted
+     * descending by modified timestamp.
+     */
+    static final class Snapshot {
+
+        final List<Artifact> all;
+        final Map<ObjectId, Artifact> byId = new HashMap<>();
+        final Map<String, List<Artifact>> byEngagement = new HashMap<>();
+        final Map<String, List<Artifact>> byRegion = new HashMap<>();
+        final Map<String, List<Artifact>> byType = new HashMap<>();
+
+        Snapshot(Collection<Artifact> artifacts) {
+
+            List<Artifact> sorted = new ArrayList<>(artifacts);
+            sorted.sort(MODIFIED_DESC);
+            all = Collections.unmodifiableList(sorted);
+
+            for (Artifact artifact : sorted) {
+                byId.put(artifact.getId(), artifact);
+                byEngagement.computeIfAbsent(artifact.getEngagementUuid(), k -> new ArrayList<>()).add(artifact);
+                byRegion.computeIfAbsent(artifact.getRegion(), k -> new ArrayList<>()).add(artifact);
+                byType.computeIfAbsent(artifact.getType(), k -> new ArrayList<>()).add(artifact);
+            }
+        }
+
+    }
+
+}
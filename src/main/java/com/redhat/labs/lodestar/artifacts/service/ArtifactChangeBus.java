@@ -0,0 +1,328 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ChangeStreamToken;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Tells local consumers, such as {@link ArtifactCache}, which engagements have
+ * had their artifacts changed by this or any other replica. Consumers observe
+ * {@link ArtifactsChanged} events.
+ *
+ * Writes made by this replica are published directly by the write path. When
+ * watching is enabled, writes from other replicas are read from a Mongo change
+ * stream whose resume token is saved after each batch so a restart continues
+ * where the last one stopped. The token is saved under this replica's id,
+ * HOSTNAME by default, so replicas never resume from each other's position. Standalone Mongo has no change streams, so the
+ * collection is polled instead for artifacts modified after the last seen
+ * timestamp and for changes in each engagement's artifact count.
+ */
+@ApplicationScoped
+public class ArtifactChangeBus {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactChangeBus.class);
+
+    private static final int NOT_A_REPLICA_SET = 40573;
+    private static final int MAX_BATCHED_CHANGES = 1000;
+
+    @ConfigProperty(name = "artifacts.changes.watch.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "artifacts.changes.watch.id")
+    Optional<String> configuredWatcherId;
+
+    private String watcherId;
+
+    @ConfigProperty(name = "artifacts.changes.poll.interval", defaultValue = "10s")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "artifacts.changes.full.reload.interval", defaultValue = "5m")
+    Duration fullReloadInterval;
+
+    @Inject
+    Event<ArtifactsChanged> changes;
+
+    private final Map<ObjectId, String> engagementById = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private ExecutorService watcher;
+
+    void onStart(@Observes StartupEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        // a replica without a stable name keeps its resume token to itself and starts from now after a restart
+        watcherId = configuredWatcherId.filter(id -> !id.isBlank())
+                .orElseGet(() -> System.getenv().getOrDefault("HOSTNAME", "artifacts-" + new ObjectId()));
+        ChangeStreamToken.createIndexes();
+
+        running = true;
+        watcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "artifact-change-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.submit(this::watch);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (null != watcher) {
+            watcher.shutdownNow();
+        }
+    }
+
+    /**
+     * Notifies consumers that the artifacts of the given engagements have changed.
+     *
+     * @param engagementUuids
+     */
+    public void publish(Collection<String> engagementUuids) {
+
+        if (engagementUuids.contains(null)) {
+            publishAll();
+        } else if (!engagementUuids.isEmpty()) {
+            changes.fire(ArtifactsChanged.of(engagementUuids));
+        }
+
+    }
+
+    /**
+     * Notifies consumers that any engagement's artifacts may have changed.
+     */
+    public void publishAll() {
+        changes.fire(ArtifactsChanged.all());
+    }
+
+    /**
+     * Follows the change stream until stopped, falling back to polling when change
+     * streams are not supported by the database.
+     */
+    void watch() {
+
+        while (running) {
+            try {
+                watchChangeStream();
+            } catch (MongoCommandException mce) {
+                if (mce.getErrorCode() == NOT_A_REPLICA_SET) {
+                    LOGGER.info("Change streams unavailable ({}). Polling for artifact changes every {}",
+                            mce.getErrorMessage(), pollInterval);
+                    poll();
+                } else {
+                    // most likely the resume token is no longer in the oplog
+                    LOGGER.warn("Unable to resume artifact change stream ({}). Starting from now",
+                            mce.getErrorMessage());
+                    ChangeStreamToken.removeToken(watcherId);
+                    pause(pollInterval);
+                }
+            } catch (RuntimeException e) {
+                if (running) {
+                    LOGGER.error("Artifact change watcher failed. Restarting", e);
+                    pause(pollInterval);
+                }
+            }
+        }
+
+    }
+
+    void watchChangeStream() {
+
+        MongoCollection<Artifact> collection = Artifact.mongoCollection();
+        ChangeStreamIterable<Artifact> stream = collection.watch().fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+
+        Optional<BsonDocument> resumeToken = ChangeStreamToken.findToken(watcherId);
+        resumeToken.ifPresent(stream::resumeAfter);
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Artifact>> cursor = stream.cursor()) {
+
+            loadEngagementIds();
+
+            if (resumeToken.isEmpty()) {
+                // nothing to replay from so anything may have been missed
+                publishAll();
+            }
+
+            Set<String> changed = new HashSet<>();
+            boolean all = false;
+            int batched = 0;
+
+            while (running) {
+
+                ChangeStreamDocument<Artifact> change = cursor.tryNext();
+
+                if (null != change) {
+                    if (OperationType.INVALIDATE == change.getOperationType()) {
+                        ChangeStreamToken.removeToken(watcherId);
+                        publishAll();
+                        return;
+                    }
+
+                    Set<String> engagements = engagementsOf(change);
+                    changed.addAll(engagements);
+                    all = all || engagements.isEmpty();
+                    batched++;
+                }
+
+                if ((null == change && batched > 0) || batched >= MAX_BATCHED_CHANGES) {
+                    if (all) {
+                        publishAll();
+                    } else {
+                        publish(changed);
+                    }
+                    saveResumeToken(cursor.getResumeToken());
+                    changed.clear();
+                    all = false;
+                    batched = 0;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Returns the engagements affected by the change, or an empty {@link Set} if
+     * they cannot be determined.
+     *
+     * @param change
+     * @return
+     */
+    Set<String> engagementsOf(ChangeStreamDocument<Artifact> change) {
+
+        BsonDocument key = change.getDocumentKey();
+        if (null == key || !key.isObjectId("_id")) {
+            return Set.of();
+        }
+
+        ObjectId id = key.getObjectId("_id").getValue();
+
+        if (OperationType.DELETE == change.getOperationType()) {
+            String engagementUuid = engagementById.remove(id);
+            return null == engagementUuid ? Set.of() : Set.of(engagementUuid);
+        }
+
+        Artifact artifact = change.getFullDocument();
+        if (null == artifact || null == artifact.getEngagementUuid()) {
+            String engagementUuid = engagementById.get(id);
+            return null == engagementUuid ? Set.of() : Set.of(engagementUuid);
+        }
+
+        Set<String> engagements = new HashSet<>();
+        engagements.add(artifact.getEngagementUuid());
+
+        // an artifact moved between engagements changes both
+        String previous = engagementById.put(id, artifact.getEngagementUuid());
+        if (null != previous) {
+            engagements.add(previous);
+        }
+
+        return engagements;
+    }
+
+    void loadEngagementIds() {
+        engagementById.clear();
+        Artifact.findAllEngagementUuidsById().forEach((id, uuid) -> {
+            if (null != uuid) {
+                engagementById.put(id, uuid);
+            }
+        });
+    }
+
+    void saveResumeToken(BsonDocument token) {
+        if (null != token) {
+            ChangeStreamToken.saveToken(watcherId, token);
+        }
+    }
+
+    void poll() {
+
+        Instant watermark = Artifact.findLatestModified().orElse(null);
+        Map<String, Long> counts = countsByEngagement();
+        long lastFullReload = System.currentTimeMillis();
+
+        while (running) {
+
+            pause(pollInterval);
+
+            if (System.currentTimeMillis() - lastFullReload >= fullReloadInterval.toMillis()) {
+                // a purge and refresh between polls can leave both counts and timestamps unchanged
+                watermark = Artifact.findLatestModified().orElse(null);
+                counts = countsByEngagement();
+                publishAll();
+                lastFullReload = System.currentTimeMillis();
+                continue;
+            }
+
+            Instant nextWatermark = Artifact.findLatestModified().orElse(watermark);
+            Set<String> changed = new HashSet<>();
+
+            if (null != watermark) {
+                changed.addAll(Artifact.findEngagementUuidsModifiedAfter(watermark));
+            }
+
+            // deletes leave no modified timestamp behind so compare counts per engagement
+            Map<String, Long> previous = counts;
+            Map<String, Long> current = countsByEngagement();
+            current.forEach((uuid, count) -> {
+                if (!count.equals(previous.get(uuid))) {
+                    changed.add(uuid);
+                }
+            });
+            previous.keySet().stream().filter(uuid -> !current.containsKey(uuid)).forEach(changed::add);
+
+            watermark = nextWatermark;
+            counts = current;
+            publish(changed);
+        }
+
+    }
+
+    Map<String, Long> countsByEngagement() {
+        Map<String, Long> counts = new HashMap<>();
+        Artifact.countArtifactsForEachEngagement().forEach(c -> counts.put(c.getType(), c.getCount()));
+        return counts;
+    }
+
+    void pause(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            running = false;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.ws.rs.WebApplicationException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChange;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChanges;
+
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Records every {@link Artifact} written or deleted, by the API or by a reload
+ * from GitLab, as an {@link ArtifactChange} so clients can sync incrementally
+ * instead of downloading everything again.
+ *
+ * A client starts by asking for the current token, loads all artifacts, then
+ * asks for the changes since its token. A token older than the oldest change
+ * kept, or from before a purge, gets a 410 and the client must load everything
+ * again.
+ *
+ * A purge or snapshot restore replaces the log with a reset.
+ */
+@ApplicationScoped
+public class ArtifactChangeLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactChangeLog.class);
+
+    private static final int GONE = 410;
+
+    @ConfigProperty(name = "artifacts.changes.log.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "artifacts.changes.page.size", defaultValue = "500")
+    int pageSize;
+
+    @ConfigProperty(name = "artifacts.changes.settle", defaultValue = "5s")
+    Duration settle;
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            ArtifactChange.createIndexes();
+        }
+    }
+
+    public void recordUpserts(List<Artifact> artifacts) {
+        record(ArtifactChange.of(ArtifactChange.UPSERT, artifacts));
+    }
+
+    public void recordDeletes(List<Artifact> artifacts) {
+        record(ArtifactChange.of(ArtifactChange.DELETE, artifacts));
+    }
+
+    /**
+     * Appends the changes to the log. The artifacts have already been written so
+     * a failure is logged rather than thrown.
+     * 
+     * @param changes
+     */
+    public void record(List<ArtifactChange> changes) {
+
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            ArtifactChange.record(changes);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to record {} artifact changes", changes.size(), e);
+        }
+    }
+
+    /**
+     * Clears the log after the artifacts have been replaced wholesale, so every
+     * token handed out so far is out of date.
+     */
+    public void reset() {
+        if (enabled) {
+            ArtifactChange.reset();
+        }
+    }
+
+    /**
+     * Returns the changes after the given token, at most limit at a time, or only
+     * the current token if none is given.
+     * 
+     * @param since
+     * @param limit
+     * @return
+     */
+    public ArtifactChanges changesSince(String since, int limit) {
+
+        if (!enabled) {
+            throw new WebApplicationException("The artifact change log is disabled", 404);
+        }
+
+        long latest = ArtifactChange.latestSequence();
+        if (null == since) {
+            return ArtifactChanges.builder().next(String.valueOf(latest)).build();
+        }
+
+        long from = checkToken(since, latest);
+        List<ArtifactChange> log = settledAfter(from, limit < 1 ? pageSize : Math.min(limit, pageSize));
+        if (log.stream().anyMatch(ArtifactChange::isReset)) {
+            // reset since the token was checked
+            throw gone(since);
+        }
+
+        // the last change to each artifact wins, in the order of those last changes
+        Map<String, ArtifactChange> changes = new LinkedHashMap<>();
+        log.forEach(change -> {
+            changes.remove(change.getUuid());
+            changes.put(change.getUuid(), change);
+        });
+
+        List<String> upserted = changes.values().stream().filter(c -> !c.isDelete()).map(ArtifactChange::getUuid)
+                .collect(Collectors.toList());
+        Map<String, Artifact> current = findArtifacts(upserted);
+        long next = log.isEmpty() ? from : log.get(log.size() - 1).getSequence();
+
+        // an artifact upserted then deleted after this page is left to the next page
+        return ArtifactChanges.builder()
+                .upserts(upserted.stream().filter(current::containsKey).map(current::get).collect(Collectors.toList()))
+                .deletes(changes.values().stream().filter(ArtifactChange::isDelete).collect(Collectors.toList()))
+                .next(String.valueOf(next)).more(next < latest).build();
+    }
+
+    /**
+     * Returns the sequence number of the token, or throws a 410 if the changes
+     * since it are no longer all in the log.
+     * 
+     * @param token
+     * @param latest the latest sequence number
+     * @return
+     */
+    long checkToken(String token, long latest) {
+
+        long from = parseToken(token);
+        Optional<ArtifactChange> oldest = ArtifactChange.findOldest();
+        long first = oldest.map(ArtifactChange::getSequence).orElse(latest + 1);
+        boolean reset = oldest.map(ArtifactChange::isReset).orElse(false);
+
+        if (from > latest || from + 1 < first || (reset && from < first)) {
+            throw gone(token);
+        }
+
+        return from;
+    }
+
+    private static WebApplicationException gone(String token) {
+        return new WebApplicationException("Changes since " + token + " are no longer available. Reload all artifacts",
+                GONE);
+    }
+
+    /**
+     * Returns at most limit changes after the given sequence number, in order,
+     * stopping at a gap in the sequence younger than the settle time since the
+     * missing changes may still be being written.
+     * 
+     * @param sequence
+     * @param limit
+     * @return
+     */
+    List<ArtifactChange> settledAfter(long sequence, int limit) {
+
+        List<ArtifactChange> log = ArtifactChange.findAfter(sequence, limit);
+        long settled = System.currentTimeMillis() - settle.toMillis();
+        long next = sequence;
+
+        for (int i = 0; i < log.size(); i++) {
+            ArtifactChange change = log.get(i);
+            if (change.getSequence() != next + 1 && change.getRecorded().getTime() > settled) {
+                return log.subList(0, i);
+            }
+            next = change.getSequence();
+        }
+
+        return log;
+    }
+
+    /**
+     * Returns the {@link Artifact}s with the given uuids keyed by uuid.
+     * 
+     * @param uuids
+     * @return
+     */
+    Map<String, Artifact> findArtifacts(List<String> uuids) {
+        return uuids.isEmpty() ? Map.of()
+                : Artifact.findAllByUuidIn(uuids).stream()
+                        .collect(Collectors.toMap(Artifact::getUuid, Function.identity(), (a, b) -> a));
+    }
+
+    private static long parseToken(String token) {
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException("Invalid change token " + token, 400);
+        }
+    }
+
+}
@@ -0,0 +1,525 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Pushes {@link Artifact} changes to Server-Sent Events subscribers, each
+ * filtered by engagement, region and type.
+ *
+ * Events are read from the {@link ArtifactChangeLog} in sequence order, so
+ * writes by the API, reloads from GitLab and other replicas are all seen. Only
+ * artifacts that actually changed are in the log, so a reload of unchanged
+ * engagements sends nothing. The
+ * log is read as soon as {@link ArtifactsChanged} is published and otherwise
+ * polled while anyone is subscribed. Each event id is its sequence number, so
+ * a client reconnecting with Last-Event-ID gets what it missed.
+ *
+ * Every subscriber has a bounded buffer, sent from by a worker of its own so a
+ * slow client holds up nobody else. A subscriber that falls so far behind its
+ * buffer fills has the buffered events dropped and is sent a resync event
+ * instead, after which it should load all artifacts again.
+ */
+@ApplicationScoped
+public class ArtifactEventStream {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactEventStream.class);
+
+    static final String RESYNC = "resync";
+    private static final int UNAVAILABLE = 503;
+
+    @ConfigProperty(name = "artifacts.events.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "artifacts.events.buffer.size", defaultValue = "256")
+    int bufferSize;
+
+    @ConfigProperty(name = "artifacts.events.max.subscribers", defaultValue = "500")
+    int maxSubscribers;
+
+    @ConfigProperty(name = "artifacts.events.poll.interval", defaultValue = "2s")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "artifacts.events.heartbeat.interval", defaultValue = "30s")
+    Duration heartbeatInterval;
+
+    @Inject
+    ArtifactChangeLog changeLog;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private Counter resyncs;
+    private ExecutorService reader;
+    private ExecutorService senders;
+    private volatile boolean running;
+    private volatile Sse sse;
+
+    // last sequence number sent to subscribers, guarded by this
+    private long cursor;
+
+    // guarded by subscribers
+    private boolean changed;
+
+    void onStart(@Observes StartupEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        resyncs = Counter.builder("artifacts.events.resyncs")
+                .description("Event subscribers told to resync because they fell behind").register(registry);
+        Gauge.builder("artifacts.events.subscribers", subscribers, Set::size)
+                .description("Connected artifact event subscribers").register(registry);
+
+        running = true;
+        reader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "artifact-event-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // at most one send at a time per subscriber, so threads are bounded by the subscriber limit
+        senders = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "artifact-event-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reader.submit(this::run);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (null != reader) {
+            reader.shutdownNow();
+        }
+        subscribers.forEach(Subscriber::close);
+        if (null != senders) {
+            senders.shutdownNow();
+        }
+    }
+
+    void onChange(@Observes ArtifactsChanged change) {
+        synchronized (subscribers) {
+            changed = true;
+            subscribers.notifyAll();
+        }
+    }
+
+    /**
+     * Adds a subscriber receiving the changes matching all of the given filters
+     * that are set. Changes after the last event id are replayed first, outside
+     * the lock so other subscribers are not held up, with newer changes held
+     * back until the replay is done.
+     *
+     * @param sink
+     * @param sse
+     * @param engagementUuid
+     * @param type
+     * @param regions
+     * @param lastEventId
+     */
+    public void subscribe(SseEventSink sink, Sse sse, String engagementUuid, String type, List<String> regions,
+            String lastEventId) {
+
+        if (!enabled) {
+            throw new WebApplicationException("Artifact events are disabled", 404);
+        }
+
+        this.sse = sse;
+        Subscriber subscriber = new Subscriber(sink, bufferSize, engagementUuid, type,
+                null == regions ? Set.of() : new HashSet<>(regions), senders);
+
+        Long from = null;
+        if (null != lastEventId) {
+            try {
+                from = changeLog.checkToken(lastEventId, ArtifactChange.latestSequence());
+                // anything up to its last event that the cursor has not reached was already seen
+                subscriber.skipThrough = from;
+            } catch (WebApplicationException e) {
+                // no longer in the log, so it is resynced instead
+            }
+            subscriber.hold();
+        }
+
+        long replayTo;
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new WebApplicationException("Too many artifact event subscribers", UNAVAILABLE);
+            }
+            if (subscribers.isEmpty()) {
+                // nobody was listening so there is nothing to send before now
+                cursor = ArtifactChange.latestSequence();
+            }
+            subscribers.add(subscriber);
+            replayTo = cursor;
+        }
+
+        if (null != lastEventId) {
+            try {
+                if (null == from) {
+                    resync(subscriber, false);
+                } else {
+                    replay(subscriber, from, replayTo);
+                }
+            } finally {
+                subscriber.release(this::resyncEvent);
+            }
+        }
+
+        LOGGER.debug("Artifact event subscriber added. {} subscribed", subscribers.size());
+    }
+
+    /**
+     * Sends the subscriber the changes after its last event up to the cursor it
+     * joined at.
+     *
+     * @param subscriber
+     * @param from
+     * @param to
+     */
+    void replay(Subscriber subscriber, long from, long to) {
+
+        while (from < to) {
+            long last = to;
+            List<ArtifactChange> changes = changeLog.settledAfter(from, bufferSize).stream()
+                    .filter(c -> c.getSequence() <= last).collect(Collectors.toList());
+            if (changes.isEmpty()) {
+                return;
+            }
+            send(changes, Set.of(subscriber), false);
+            from = changes.get(changes.size() - 1).getSequence();
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    void run() {
+
+        long lastHeartbeat = System.currentTimeMillis();
+
+        while (running) {
+            try {
+                awaitChange();
+
+                subscribers.removeIf(Subscriber::isClosed);
+                if (subscribers.isEmpty()) {
+                    continue;
+                }
+
+                sendChanges();
+
+                if (System.currentTimeMillis() - lastHeartbeat >= heartbeatInterval.toMillis()) {
+                    OutboundSseEvent heartbeat = sse.newEventBuilder().comment("heartbeat").build();
+                    subscribers.forEach(s -> s.offerIfIdle(heartbeat));
+                    lastHeartbeat = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to send artifact events", e);
+            }
+        }
+    }
+
+    private void awaitChange() throws InterruptedException {
+        synchronized (subscribers) {
+            if (!changed) {
+                subscribers.wait(pollInterval.toMillis());
+            }
+            changed = false;
+        }
+    }
+
+    /**
+     * Sends every settled change after the cursor to the subscribers.
+     */
+    synchronized void sendChanges() {
+
+        List<ArtifactChange> changes;
+        do {
+            changes = changeLog.settledAfter(cursor, bufferSize);
+            if (!changes.isEmpty()) {
+                send(changes, subscribers, true);
+                cursor = changes.get(changes.size() - 1).getSequence();
+            }
+        } while (changes.size() == bufferSize);
+    }
+
+    private void send(List<ArtifactChange> changes, Set<Subscriber> to, boolean live) {
+
+        Map<String, Artifact> artifacts = changeLog.findArtifacts(changes.stream()
+                .filter(c -> ArtifactChange.UPSERT.equals(c.getOperation())).map(ArtifactChange::getUuid)
+                .distinct().collect(Collectors.toList()));
+
+        for (ArtifactChange change : changes) {
+
+            if (change.isReset()) {
+                to.forEach(subscriber -> resync(subscriber, live));
+                continue;
+            }
+
+            Object data = change.isDelete() ? change : artifacts.get(change.getUuid());
+            if (null == data) {
+                // deleted since, which a later change will say
+                continue;
+            }
+
+            OutboundSseEvent event = sse.newEventBuilder().id(String.valueOf(change.getSequence()))
+                    .name(change.getOperation().toLowerCase()).data(String.class, jsonb.toJson(data)).build();
+            to.stream().filter(s -> s.matches(change)).forEach(s -> {
+                if (live ? s.offer(event, this::resyncEvent) : s.replay(event, this::resyncEvent)) {
+                    resyncs.increment();
+                }
+            });
+        }
+    }
+
+    private void resync(Subscriber subscriber, boolean live) {
+        if (live) {
+            subscriber.offer(resyncEvent(), null);
+        } else {
+            subscriber.replay(resyncEvent(), null);
+        }
+        resyncs.increment();
+    }
+
+    private OutboundSseEvent resyncEvent() {
+        return sse.newEventBuilder().name(RESYNC).data(String.class, String.valueOf(ArtifactChange.latestSequence()))
+                .build();
+    }
+
+    /**
+     * A connected client with its filters and a bounded buffer of events waiting
+     * to be sent. Events are sent one at a time on the subscriber's worker, so
+     * offering an event never waits on the client.
+     */
+    static final class Subscriber {
+
+        private final SseEventSink sink;
+        private final int capacity;
+        private final String engagementUuid;
+        private final String type;
+        private final Set<String> regions;
+        private final Executor sender;
+        private final Deque<OutboundSseEvent> buffer = new ArrayDeque<>();
+        // live events waiting for a replay to finish, null when not replaying
+        private Deque<OutboundSseEvent> held;
+        private boolean sending;
+
+        // changes up to this sequence number were seen before reconnecting
+        volatile long skipThrough = -1;
+
+        Subscriber(SseEventSink sink, int capacity, String engagementUuid, String type, Set<String> regions,
+                Executor sender) {
+            this.sink = sink;
+            this.capacity = capacity;
+            this.engagementUuid = engagementUuid;
+            this.type = type;
+            this.regions = regions;
+            this.sender = sender;
+        }
+
+        boolean matches(ArtifactChange change) {
+            return change.getSequence() > skipThrough
+                    && (null == engagementUuid || engagementUuid.equals(change.getEngagementUuid()))
+                    && (null == type || type.equals(change.getArtifactType()))
+                    && (regions.isEmpty() || regions.contains(change.getRegion()));
+        }
+
+        /**
+         * Queues the event and returns true if the buffer was full, in which case
+         * the waiting events are dropped for a resync event from the given factory.
+         * While a replay is running the event is held back until it is done.
+         *
+         * @param event
+         * @param resync null for events sent regardless of the buffer size
+         * @return
+         */
+        boolean offer(OutboundSseEvent event, Supplier<OutboundSseEvent> resync) {
+
+            boolean overflow;
+            synchronized (this) {
+                if (isClosed()) {
+                    return false;
+                }
+                if (null != held) {
+                    return add(held, event, resync);
+                }
+                overflow = add(buffer, event, resync);
+            }
+
+            startSending();
+            return overflow;
+        }
+
+        /**
+         * Queues a replayed event ahead of any live events held back.
+         *
+         * @param event
+         * @param resync
+         * @return
+         */
+        boolean replay(OutboundSseEvent event, Supplier<OutboundSseEvent> resync) {
+
+            boolean overflow;
+            synchronized (this) {
+                if (isClosed()) {
+                    return false;
+                }
+                overflow = add(buffer, event, resync);
+            }
+
+            startSending();
+            return overflow;
+        }
+
+        /**
+         * Holds back live events until {@link #release(Supplier)}.
+         */
+        synchronized void hold() {
+            held = new ArrayDeque<>();
+        }
+
+        /**
+         * Queues the live events held back during a replay.
+         *
+         * @param resync
+         */
+        void release(Supplier<OutboundSseEvent> resync) {
+
+            synchronized (this) {
+                if (null == held) {
+                    return;
+                }
+                Deque<OutboundSseEvent> waiting = held;
+                held = null;
+                waiting.forEach(e -> add(buffer, e, resync));
+            }
+
+            startSending();
+        }
+
+        /**
+         * Queues the event only if nothing is waiting to be sent.
+         *
+         * @param event
+         */
+        void offerIfIdle(OutboundSseEvent event) {
+            synchronized (this) {
+                if (sending || !buffer.isEmpty() || null != held) {
+                    return;
+                }
+            }
+            offer(event, null);
+        }
+
+        private boolean add(Deque<OutboundSseEvent> queue, OutboundSseEvent event,
+                Supplier<OutboundSseEvent> resync) {
+
+            boolean overflow = null != resync && queue.size() >= capacity;
+            if (overflow) {
+                queue.clear();
+                queue.add(resync.get());
+            }
+
+            queue.add(event);
+            return overflow;
+        }
+
+        private void startSending() {
+
+            synchronized (this) {
+                if (sending || buffer.isEmpty()) {
+                    return;
+                }
+                sending = true;
+            }
+
+            sender.execute(this::sendNext);
+        }
+
+        /**
+         * Sends the next buffered event and, once it is written, schedules the one
+         * after on the worker again.
+         */
+        private void sendNext() {
+
+            OutboundSseEvent next;
+            synchronized (this) {
+                next = buffer.poll();
+                sending = null != next;
+                if (!sending) {
+                    return;
+                }
+            }
+
+            try {
+                sink.send(next).whenComplete((r, e) -> {
+                    if (null != e) {
+                        close();
+                    } else {
+                        sender.execute(this::sendNext);
+                    }
+                });
+            } catch (RuntimeException e) {
+                close();
+            }
+        }
+
+        synchronized int buffered() {
+            return buffer.size();
+        }
+
+        boolean isClosed() {
+            return sink.isClosed();
+        }
+
+        synchronized void close() {
+            buffer.clear();
+            if (!sink.isClosed()) {
+                sink.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.json.bind.Jsonb;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+
+/**
+ * Hashes used to tell whether an engagement's artifacts in Mongo or GitLab have
+ * changed without comparing the artifacts themselves.
+ */
+final class ArtifactHashes {
+
+    private ArtifactHashes() {
+    }
+
+    /**
+     * Returns a SHA-256 of the artifacts as json, ordered by uuid so the hash
+     * does not depend on the order they were read in.
+     *
+     * @param jsonb
+     * @param artifacts
+     * @return
+     */
+    static String contentHash(Jsonb jsonb, List<Artifact> artifacts) {
+        List<Artifact> sorted = new ArrayList<>(artifacts);
+        sorted.sort(Comparator.comparing(Artifact::getUuid, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return hex(digest("SHA-256", jsonb.toJson(sorted).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns the id git gives a blob with the content, which is what GitLab
+     * reports as the blob id of a file.
+     *
+     * @param content
+     * @return
+     */
+    static String gitBlobId(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        byte[] header = ("blob " + bytes.length + "\0").getBytes(StandardCharsets.UTF_8);
+        byte[] blob = new byte[header.length + bytes.length];
+        System.arraycopy(header, 0, blob, 0, header.length);
+        System.arraycopy(bytes, 0, blob, header.length, bytes.length);
+        return hex(digest("SHA-1", blob));
+    }
+
+    private static byte[] digest(String algorithm, byte[] bytes) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " unavailable", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+}
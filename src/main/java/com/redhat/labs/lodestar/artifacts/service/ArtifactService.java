@@ -1,25 +1,69 @@
 package com.redhat.labs.lodestar.artifacts.service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.ServerErrorException;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.mongodb.client.MongoCursor;
+import com.redhat.labs.lodestar.artifacts.jfr.ArtifactDiffEvent;
+import com.redhat.labs.lodestar.artifacts.jfr.GitlabCommitEvent;
+import com.redhat.labs.lodestar.artifacts.jfr.RefreshPhaseEvent;
+import com.redhat.labs.lodestar.artifacts.jfr.SerializationEvent;
+import com.redhat.labs.lodestar.artifacts.metrics.ArtifactMetrics;
+import com.redhat.labs.lodestar.artifacts.metrics.ServerTimings;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactDiffSummary;
+import com.redhat.labs.lodestar.artifacts.model.EngagementArtifacts;
+import com.redhat.labs.lodestar.artifacts.model.SearchOptions;
 import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
-import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
+import com.redhat.labs.lodestar.artifacts.model.PendingCommit;
+import com.redhat.labs.lodestar.artifacts.model.RefreshJob;
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
+import com.redhat.labs.lodestar.artifacts.tracing.Traced;
 import com.redhat.labs.lodestar.artifacts.model.gitlab.Action;
 import com.redhat.labs.lodestar.artifacts.model.gitlab.Commit;
+import io.opentelemetry.context.Context;
 import io.quarkus.panache.common.Sort;
+import io.quarkus.runtime.StartupEvent;
 import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.javers.core.ChangesByObject;
 import org.javers.core.Javers;
@@ -30,16 +74,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChange;
 import com.redhat.labs.lodestar.artifacts.model.ArtifactCount;
 import com.redhat.labs.lodestar.artifacts.model.Engagement;
+import com.redhat.labs.lodestar.artifacts.model.EngagementBlob;
+import com.redhat.labs.lodestar.artifacts.model.EngagementSyncState;
 import com.redhat.labs.lodestar.artifacts.model.GetOptions;
 import com.redhat.labs.lodestar.artifacts.model.gitlab.File;
+import com.redhat.labs.lodestar.artifacts.rest.client.GitlabRateLimiter;
 import com.redhat.labs.lodestar.artifacts.rest.client.GitlabRestClient;
 
 @ApplicationScoped
 public class ArtifactService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactService.class);
 
+    private static final String LEGACY_ENGAGEMENT_FILE = "engagement.json";
+
     @ConfigProperty(name = "artifacts.file", defaultValue = "artifacts.json")
     String artifactsFile;
 
@@ -55,31 +105,119 @@ public class ArtifactService {
     @ConfigProperty(name = "default.author.email")
     String defaultAuthorEmail;
 
+    @ConfigProperty(name = "stream.batch.size", defaultValue = "200")
+    int streamBatchSize;
+
+    @ConfigProperty(name = "default.page.size", defaultValue = "20")
+    int defaultPageSize;
+
+    @ConfigProperty(name = "batch.engagements.max", defaultValue = "500")
+    int maxBatchEngagements;
+
+    @ConfigProperty(name = "gitlab.rate.limit.retries", defaultValue = "5")
+    int rateLimitRetries;
+
+    @ConfigProperty(name = "drift.check.enabled", defaultValue = "true")
+    boolean driftCheckEnabled;
+
+    @ConfigProperty(name = "commit.prepare.timeout", defaultValue = "30s")
+    Duration commitPrepareTimeout;
+
+    @ConfigProperty(name = "commit.prepare.threads", defaultValue = "8")
+    int commitPrepareThreads;
+
+    @ConfigProperty(name = "commit.prepare.queue.size", defaultValue = "100")
+    int commitPrepareQueueSize;
+
     @Inject
     @RestClient
     GitlabRestClient gitlabRestClient;
 
     @Inject
-    @RestClient
-    EngagementApiRestClient engagementRestClient;
+    GitlabRateLimiter rateLimiter;
+
+    @Inject
+    EngagementLookup engagementLookup;
 
     @Inject
     Jsonb jsonb;
 
+    @Inject
+    ArtifactCache cache;
+
+    @Inject
+    ArtifactChangeBus changeBus;
+
+    @Inject
+    ArtifactMetrics metrics;
+
+    @Inject
+    ArtifactSnapshots snapshots;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @Inject
+    RefreshQueue refreshQueue;
+
+    @Inject
+    EngagementSyncRetrier syncRetrier;
+
+    @Inject
+    ArtifactChangeLog changeLog;
+
     Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
-    private static final Javers JAVERS = JaversBuilder.javers()
+    static final Javers JAVERS = JaversBuilder.javers()
             .withListCompareAlgorithm(ListCompareAlgorithm.LEVENSHTEIN_DISTANCE).build();
 
 
+    private ExecutorService commitPreparation;
+
+    @PostConstruct
+    void init() {
+        // bounded, and once full the caller runs the step itself so PUTs slow down instead of piling up threads
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(commitPrepareThreads, commitPrepareThreads, 60,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(commitPrepareQueueSize), r -> {
+                    Thread thread = new Thread(r, "artifact-commit-prepare");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        commitPreparation = Context.taskWrapping(pool);
+    }
+
+    @PreDestroy
+    void destroy() {
+        commitPreparation.shutdownNow();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        Artifact.createIndexes();
+
+        if (snapshots.restoreIfEmpty() > 0) {
+            // serve the restored artifacts now and catch up with GitLab in the background
+            CompletableFuture.runAsync(() -> {
+                try {
+                    leaderElection.runAsLeader(LeaderElection.REFRESH, this::reconcile);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Reconcile after snapshot restore failed", e);
+                }
+            });
+        }
+    }
+
     @Scheduled(every = "5m")
     void checkDBPopulated() {
         long count = Artifact.count();
         LOGGER.info("There are {} artifacts in the db", count);
+        metrics.updateEngagementCounts(getEngagementCounts());
 
-        if(count == 0) {
+        if(count == 0 && !snapshots.isRestoring()) {
             LOGGER.debug("Refreshing empty db");
-            refresh();
+            leaderElection.runAsLeader(LeaderElection.REFRESH, this::reloadAll)
+                    .ifPresentOrElse(c -> LOGGER.info("Refreshed {} artifacts", c),
+                            () -> LOGGER.debug("Refresh of empty db left to the replica holding the lease"));
         }
     }
     /**
@@ -87,17 +225,239 @@ public class ArtifactService {
      */
     public void purge() {
         Artifact.removeAllArtifacts();
+        EngagementBlob.removeAllBlobs();
+        changeLog.reset();
+        changeBus.publishAll();
     }
 
     /**
      * Fetches all {@link Artifact}s from all projects in the configured Git group
-     * and inserts into the database.
+     * and inserts into the database. Only one replica starts a refresh at a time,
+     * and a 409 is thrown if another replica already has. The engagements are
+     * reloaded by every replica through the {@link RefreshQueue}.
      */
     public long refresh() {
-        engagementRestClient.getAllEngagements().parallelStream().forEach(this::reloadFromGitlabByEngagement);
+        return leaderElection.runAsLeader(LeaderElection.REFRESH, this::reloadAll).orElseThrow(this::refreshRunning);
+    }
+
+    /**
+     * Removes all {@link Artifact}s and fetches them again from GitLab, holding
+     * the refresh lease throughout so no other replica refreshes in between.
+     */
+    public long purgeAndRefresh() {
+        return leaderElection.runAsLeader(LeaderElection.REFRESH, () -> {
+            purge();
+            return reloadAll();
+        }).orElseThrow(this::refreshRunning);
+    }
+
+    long reloadAll() {
+        if (refreshQueue.isRunning()) {
+            refreshQueue.refresh();
+        } else {
+            reloadEngagements(e -> true);
+        }
+        changeBus.publishAll();
+        return countArtifacts(new GetOptions()).getCount();
+    }
+
+    /**
+     * Returns the most recent {@link RefreshJob}. A 404 is thrown if there is none.
+     * 
+     * @return
+     */
+    public RefreshJob getLatestRefreshJob() {
+        return RefreshJob.findLatest().orElseThrow(() -> new WebApplicationException("No refresh job found", 404));
+    }
+
+    /**
+     * Returns the engagements whose last reload from GitLab failed, most recent
+     * failure first.
+     * 
+     * @return
+     */
+    public List<EngagementSyncState> getUnhealthyEngagements() {
+        return EngagementSyncState.findAllFailed();
+    }
+
+    private WebApplicationException refreshRunning() {
+        return new WebApplicationException("A refresh is already running on another replica", 409);
+    }
+
+    /**
+     * Checks Mongo still matches GitLab and, when enabled, reloads the engagements
+     * that have drifted. Only the replica holding the refresh lease checks.
+     */
+    @Scheduled(every = "{drift.check.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void checkDrift() {
+        if (driftCheckEnabled) {
+            leaderElection.runAsLeader(LeaderElection.REFRESH, this::reconcile);
+        }
+    }
+
+    /**
+     * Reloads only the engagements that have drifted from GitLab: those whose
+     * artifacts file in GitLab has a different blob id than the one they were
+     * last loaded from or committed as, such as after restoring a snapshot, and
+     * those whose artifacts in Mongo no longer hash to what was last loaded or
+     * written. A HEAD request per engagement replaces the full file fetch for
+     * files that have not changed. Engagements with a queued commit are skipped
+     * as Mongo is ahead of GitLab until it is made. Should be run holding the
+     * {@link LeaderElection#REFRESH} lease.
+     * 
+     * @return
+     */
+    public long reconcile() {
+
+        long start = System.currentTimeMillis();
+        Map<String, EngagementBlob> blobs = EngagementBlob.findBlobsByEngagement();
+        Set<String> pending = PendingCommit.findAllPending().stream().map(PendingCommit::getEngagementUuid)
+                .collect(Collectors.toSet());
+        AtomicInteger changed = new AtomicInteger();
+
+        reloadEngagements(e -> {
+            if (pending.contains(e.getUuid())) {
+                return false;
+            }
+
+            EngagementBlob blob = blobs.get(e.getUuid());
+            boolean reload = isChangedInGitlab(e, null == blob ? null : blob.getBlobId());
+            if (reload) {
+                metrics.recordDrift(ArtifactMetrics.DRIFT_GITLAB);
+            } else if (null != blob && isChangedInMongo(e, blob.getContentHash())) {
+                metrics.recordDrift(ArtifactMetrics.DRIFT_MONGO);
+                reload = true;
+            }
+
+            if (reload) {
+                changed.incrementAndGet();
+            }
+            return reload;
+        });
+
+        metrics.updateDriftedEngagements(changed.get());
+        LOGGER.info("Reconciled with GitLab in {} ms. {} engagements reloaded", System.currentTimeMillis() - start,
+                changed.get());
+        changeBus.publishAll();
         return countArtifacts(new GetOptions()).getCount();
     }
 
+    /**
+     * Returns true if the engagement's artifacts in Mongo no longer hash to the
+     * content hash saved when they were last loaded or written. Engagements with
+     * no saved hash have the current one saved instead.
+     * 
+     * @param engagement
+     * @param contentHash
+     * @return
+     */
+    boolean isChangedInMongo(Engagement engagement, String contentHash) {
+
+        String current = contentHashOf(engagement.getUuid());
+
+        if (null == contentHash) {
+            EngagementBlob.saveContentHash(engagement.getUuid(), current);
+            return false;
+        }
+
+        return !contentHash.equals(current);
+    }
+
+    String contentHashOf(String engagementUuid) {
+        return ArtifactHashes.contentHash(jsonb, Artifact.findAllByEngagementUuid(engagementUuid));
+    }
+
+    boolean isChangedInGitlab(Engagement engagement, String blobId) {
+
+        if (null == engagement.getUuid()) {
+            return false;
+        }
+
+        if (null == blobId) {
+            return true;
+        }
+
+        try {
+            Response head = gitlabRestClient.getFileHead(engagement.getProjectId(), artifactsFile, defaultBranch);
+            try {
+                return !blobId.equals(head.getHeaderString(GitlabRestClient.BLOB_ID_HEADER));
+            } finally {
+                head.close();
+            }
+        } catch (ClientErrorException cee) {
+            if (cee.getResponse().getStatus() != 404) {
+                throw cee;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reloads the engagements accepted by the filter concurrently, up to the
+     * concurrency GitLab's rate limit currently allows, starting with the first
+     * page of engagements while later pages are still being fetched. The filter
+     * runs on the reload pool so it may call GitLab. When run holding the refresh
+     * lease, its fencing token is taken now and each reload checks it is still
+     * current before writing, so a replica that lost the lease stops writing.
+     * 
+     * @param filter
+     */
+    void reloadEngagements(Predicate<Engagement> filter) {
+
+        Runnable fence = leaderElection.fence(LeaderElection.REFRESH);
+        List<CompletableFuture<Void>> reloads = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(rateLimiter.getMaxConcurrency(), r -> {
+            Thread thread = new Thread(r, "artifact-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            engagementLookup.forEachEngagementPage(page -> page.forEach(e -> reloads
+                    .add(CompletableFuture.runAsync(() -> rateLimiter.limited(() -> {
+                        if (filter.test(e)) {
+                            reloadFromGitlabByEngagement(e, fence);
+                        }
+                        return null;
+                    }), executor))));
+            CompletableFuture.allOf(reloads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the artifacts file of the engagement, retrying calls GitLab rejects
+     * with 429 once {@link GitlabRateLimiter} allows calls again. Each retry
+     * waits out the pause first, as a pause longer than the limiter's maximum
+     * wait is otherwise answered with a local 429 straight away.
+     * 
+     * @param engagement
+     * @return
+     */
+    File fetchArtifactsFile(Engagement engagement) {
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                return gitlabRestClient.getFile(engagement.getProjectId(), artifactsFile, defaultBranch);
+            } catch (ClientErrorException cee) {
+                if (cee.getResponse().getStatus() != 429 || attempt > rateLimitRetries) {
+                    throw cee;
+                }
+                LOGGER.debug("Rate limited fetching artifacts for project {}. Retry {} of {}",
+                        engagement.getProjectId(), attempt, rateLimitRetries);
+                if (!rateLimiter.awaitResume()) {
+                    throw cee;
+                }
+            }
+        }
+    }
+
     /**
      * Returns a {@link List} of {@link Artifact}s for the given {@link File}. An
      * empty {@link List} is returned if {@link File} or its contents are null or
@@ -107,23 +467,52 @@ public class ArtifactService {
      * @return
      */
     void reloadFromGitlabByEngagement(Engagement engagement) {
+        reloadFromGitlabByEngagement(engagement, () -> {
+        });
+    }
+
+    /**
+     * Reloads the engagement, running the fence after the file is fetched and
+     * before anything is written. A fence that throws a 409 stops the reload
+     * without counting it as a failed sync.
+     * 
+     * @param engagement
+     * @param fence
+     */
+    void reloadFromGitlabByEngagement(Engagement engagement, Runnable fence) {
         if(engagement.getUuid() == null) {
             LOGGER.error("Engagement found with no uuid. Check description of project {}", engagement.getProjectId());
             return;
         }
         
+        long start = System.nanoTime();
+        // artifacts saved after this are not in the fetched file and must not be deleted
+        Instant fetched = Timestamps.now();
+
         try {
-            File file = gitlabRestClient.getFile(engagement.getProjectId(), artifactsFile, defaultBranch);
+            RefreshPhaseEvent phase = RefreshPhaseEvent.start(engagement.getUuid(), RefreshPhaseEvent.FETCH);
+            File file = fetchArtifactsFile(engagement);
             
             if(null == file.getContent() || file.getContent().isBlank()) {
                 LOGGER.error("IMPOSSIBLE. NO FILE DATA FROM GITLAB FOR PROJECT {}. THIS SHALL NOT STAND", engagement.getProjectId());
+                syncRetrier.recordFailure(engagement, "Artifacts file is empty");
                 return;
             }
+            phase.finish(file.getContent().length(), 0);
             
+            phase = RefreshPhaseEvent.start(engagement.getUuid(), RefreshPhaseEvent.DECODE);
             file.decodeFileAttributes();
+            phase.finish(file.getContent().length(), 0);
             LOGGER.trace("Gitlab file {}", file.getContent());
+
+            phase = RefreshPhaseEvent.start(engagement.getUuid(), RefreshPhaseEvent.PARSE);
             List<Artifact> artifacts = Arrays.asList(jsonb.fromJson(file.getContent(), Artifact[].class));
+            phase.finish(file.getContent().length(), artifacts.size());
             
+            fence.run();
+
+            phase = RefreshPhaseEvent.start(engagement.getUuid(), RefreshPhaseEvent.PERSIST);
+            List<Artifact> changed = new ArrayList<>();
             artifacts.forEach(a -> {
                 a.setEngagementUuid(engagement.getUuid());
              // set uuid if missing
@@ -131,20 +520,62 @@ public class ArtifactService {
                     a.setUuid(UUID.randomUUID().toString());
                 }
                 
-             // persist the artifact
-                createOrUpdateArtifact(a);
+             // persist the artifact if it is new or changed
+                if (reloadArtifact(a)) {
+                    changed.add(a);
+                }
             });
+            changeLog.recordUpserts(changed);
+
+            // artifacts removed from the file, unless they are waiting to be committed to it
+            if (!PendingCommit.isPending(engagement.getUuid())) {
+                changeLog.recordDeletes(Artifact.deleteByEngagementUuidAndUuidNotIn(engagement.getUuid(),
+                        artifacts.stream().map(Artifact::getUuid).collect(Collectors.toSet()), fetched));
+            }
+            phase.finish(file.getContent().length(), artifacts.size());
+
+            EngagementBlob.saveBlob(engagement.getUuid(), engagement.getProjectId(), file.getBlobId(),
+                    contentHashOf(engagement.getUuid()));
+            long elapsed = System.nanoTime() - start;
+            metrics.recordRefresh(elapsed, artifacts.size());
+            LOGGER.debug("Refreshed engagement {} in {} ms. {} artifacts, {} changed", engagement.getUuid(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), artifacts.size(), changed.size());
+            syncRetrier.recordSuccess(engagement);
             
         } catch(WebApplicationException wae) {
+            if(wae.getResponse().getStatus() == 409) {
+                // fenced off, another replica holds the lease now
+                throw wae;
+            }
             if(wae.getResponse().getStatus() != 404) {
+                syncRetrier.recordFailure(engagement, wae.getMessage());
                 throw wae;
             }
             LOGGER.error("NO FILE DATA FROM GITLAB FOR PROJECT {}. THIS SHALL NOT STAND", engagement.getProjectId());
+            syncRetrier.recordMissing(engagement, "Artifacts file not found");
+        } catch(RuntimeException e) {
+            syncRetrier.recordFailure(engagement, String.valueOf(e.getMessage()));
+            throw e;
         }
     }
     
-    public void updateArtifacts(String engagementUuid, String region, List<Artifact> requestArtifacts, Optional<String> authorEmail, Optional<String> authorName) {
-        
+    /**
+     * Applies the given {@link List} of {@link Artifact}s as the complete set of
+     * artifacts for the engagement and returns the uuids of the artifacts that
+     * were created, updated or deleted.
+     * 
+     * @param engagementUuid
+     * @param region
+     * @param requestArtifacts
+     * @param authorEmail
+     * @param authorName
+     * @return
+     */
+    @Traced
+    public ArtifactDiffSummary updateArtifacts(String engagementUuid, String region, List<Artifact> requestArtifacts, Optional<String> authorEmail, Optional<String> authorName) {
+
+        ArtifactDiffSummary summary = new ArtifactDiffSummary();
+
         for(Artifact artifact : requestArtifacts) {
             if (null == artifact.getUuid()) {
                 artifact.setUuid(UUID.randomUUID().toString());
@@ -158,25 +589,33 @@ public class ArtifactService {
         
         List<Artifact> existing = Artifact.findAllByEngagementUuid(engagementUuid);
         
-        Diff diff = JAVERS.compareCollections(existing, requestArtifacts, Artifact.class);
+        ArtifactDiffEvent diffEvent = ArtifactDiffEvent.start(engagementUuid, existing.size(), requestArtifacts.size());
+        Diff diff = metrics.timeDiff(() -> JAVERS.compareCollections(existing, requestArtifacts, Artifact.class));
+        List<ChangesByObject> changes = diff.groupByObject();
+        diffEvent.finish(changes.size());
+        metrics.recordDiffChanges(changes.size());
         
         if(diff.hasChanges()) {
             
             StringBuilder commitMessage = new StringBuilder(defaultCommitMessage);
 
-            diff.groupByObject().stream().filter(c -> c.getGlobalId().value().contains("Artifact")).forEach(cbo -> {
+            changes.stream().filter(c -> c.getGlobalId().value().contains("Artifact")).forEach(cbo -> {
 
                 // process the change  create/update/delete artifacts in database
-                processObjectChange(cbo, requestArtifacts);
+                processObjectChange(cbo, requestArtifacts, summary);
 
                 commitMessage.append(cbo.toString());
                 updateArtifactsFile(engagementUuid, authorEmail.orElse(defaultAuthorEmail), authorName.orElse(defaultAuthorName), Optional.ofNullable(commitMessage.toString()));
                 if(existing.size() != requestArtifacts.size()) {
-                    engagementRestClient.updateEngagement(engagementUuid, requestArtifacts.size());
+                    engagementLookup.updateArtifactCount(engagementUuid, requestArtifacts.size());
                 }
             });
+
+            EngagementBlob.saveContentHash(engagementUuid, contentHashOf(engagementUuid));
+            changeBus.publish(Set.of(engagementUuid));
         }
-        
+
+        return summary;
     }
 
     /**
@@ -187,6 +626,19 @@ public class ArtifactService {
      * @return
      */
     public List<Artifact> getArtifacts(GetListOptions options) {
+
+        if(options.getRegion().isEmpty() && options.getType().isPresent()) {
+            checkEngagementUuid(options.getEngagementUuid());
+        }
+
+        if(cache.isActive()) {
+            return cache.getArtifacts(options);
+        }
+
+        if(options.hasModifiedRange()) { //any filter within a modified range
+            return Artifact.pagedArtifactsByFilter(options.toListFilter(), options.getPage(), options.getPageSize(),
+                    querySort(options));
+        }
         
         if(!options.getRegion().isEmpty() && options.getType().isPresent()) { //by region and type
             return Artifact.pagedArtifactsByRegionAndType(options.getType().orElse(""), options.getRegion(), options.getPage(),
@@ -198,7 +650,6 @@ public class ArtifactService {
         }
         
         if(options.getType().isPresent()) { //by type
-            checkEngagementUuid(options.getEngagementUuid());
             return Artifact.pagedArtifactsByType(options.getType().orElse(""), options.getPage(), options.getPageSize(), options.getQuerySort());
         }
 
@@ -211,11 +662,127 @@ public class ArtifactService {
 
     }
 
-    public List<Artifact> getArtifactsByEngagement(String engagementUuid) {
-        return Artifact.pagedArtifactsByEngagementUuid(engagementUuid, 0, 1000, Sort.descending("modified"));
+    /**
+     * Returns the requested sort, or the default sort of the query the options
+     * select.
+     * 
+     * @param options
+     * @return
+     */
+    static Sort querySort(GetListOptions options) {
+
+        if(!options.getRegion().isEmpty() || options.getType().isPresent()) {
+            return options.getQuerySort();
+        }
+
+        return options.getEngagementUuid().isPresent() ? options.getQuerySort(Sort.descending("modified"))
+                : options.getQuerySort(Sort.descending("modified").and("engagementUuid"));
+    }
+
+    /**
+     * Returns a {@link List} of {@link Artifact}s whose title or description match
+     * the search text and any other {@link SearchOptions}, most relevant first.
+     * 
+     * @param options
+     * @return
+     */
+    public List<Artifact> searchArtifacts(SearchOptions options) {
+        checkSearch(options);
+        return Artifact.pagedArtifactsByTextSearch(options.toFilter(), options.getPage(), options.getPageSize());
+    }
+
+    /**
+     * Returns a {@link ArtifactCount} with the count of {@link Artifact}s matching
+     * the specified {@link SearchOptions}.
+     * 
+     * @param options
+     * @return
+     */
+    public ArtifactCount countSearchArtifacts(SearchOptions options) {
+        checkSearch(options);
+        return ServerTimings.time(ServerTimings.COUNT, () -> Artifact.countArtifactsByFilter(options.toFilter()));
+    }
+
+    private void checkSearch(SearchOptions options) {
+
+        if (null == options.getSearch() || options.getSearch().isBlank()) {
+            throw new WebApplicationException("search is required", 400);
+        }
+    }
+
+    /**
+     * Returns a {@link StreamingOutput} writing all {@link Artifact}s for the
+     * engagement as a JSON array. The query runs and its first batch is fetched
+     * here, so a failing database fails the request before its status is sent.
+     * Artifacts are then read from the cursor and serialized one at a time so
+     * memory use does not grow with the size of the engagement.
+     * 
+     * @param engagementUuid
+     * @return
+     */
+    public StreamingOutput streamArtifactsByEngagement(String engagementUuid) {
+        MongoCursor<Artifact> cursor = Artifact.cursorByEngagementUuid(engagementUuid, streamBatchSize);
+        return output -> writeArtifacts(cursor, output);
+    }
+
+    /**
+     * Writes the artifacts of the cursor to the output as a JSON array and closes
+     * the cursor. If the database fails part way the exception is passed on
+     * without closing the array, so the response is aborted rather than ending as
+     * valid but truncated JSON.
+     * 
+     * @param cursor
+     * @param output
+     * @throws IOException
+     */
+    void writeArtifacts(MongoCursor<Artifact> cursor, OutputStream output) throws IOException {
+
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+
+        try (cursor) {
+            writer.write('[');
+            while (cursor.hasNext()) {
+                writer.write(jsonb.toJson(cursor.next()));
+                if (cursor.hasNext()) {
+                    writer.write(',');
+                }
+            }
+            writer.write(']');
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Returns an {@link EngagementArtifacts} for each distinct engagement uuid, in
+     * the order requested. Engagements without artifacts are returned with a count
+     * of zero.
+     * 
+     * @param engagementUuids
+     * @param limit maximum number of artifacts returned per engagement
+     * @return
+     */
+    public List<EngagementArtifacts> getArtifactsByEngagements(List<String> engagementUuids, int limit) {
+
+        if (engagementUuids.size() > maxBatchEngagements) {
+            throw new WebApplicationException("No more than " + maxBatchEngagements + " engagements per request", 400);
+        }
+
+        Map<String, EngagementArtifacts> found = new HashMap<>();
+        Artifact.findAllByEngagementUuids(engagementUuids, limit < 1 ? defaultPageSize : limit)
+                .forEach(e -> found.put(e.getEngagementUuid(), e));
+
+        return engagementUuids.stream().distinct()
+                .map(uuid -> found.getOrDefault(uuid, EngagementArtifacts.builder().engagementUuid(uuid).build()))
+                .collect(Collectors.toList());
     }
 
     public List<ArtifactCount> getArtifactTypeSummary(List<String> regions) {
+
+        if(cache.isActive()) {
+            return cache.countArtifactsForEachRegionAndType(regions);
+        }
+
         return Artifact.countArtifactsForEachRegionAndType(regions);
     }
     
@@ -234,6 +801,19 @@ public class ArtifactService {
      * @return
      */
     public ArtifactCount countArtifacts(GetOptions options) {
+        return ServerTimings.time(ServerTimings.COUNT, () -> count(options));
+    }
+
+    private ArtifactCount count(GetOptions options) {
+
+        if(cache.isActive()) {
+            return cache.countArtifacts(options);
+        }
+
+        if(options.hasModifiedRange()) {
+            return Artifact.countArtifactsByFilter(options.toListFilter());
+        }
+
         String type = options.getType().orElse("");
 
         Optional<String> engagementUuid = options.getEngagementUuid();
@@ -257,6 +837,11 @@ public class ArtifactService {
     }
 
     public Map<String, Long> getEngagementCounts() {
+
+        if(cache.isActive()) {
+            return cache.countArtifactsForEachEngagement();
+        }
+
         Map<String, Long> countMap = new HashMap<>();
         Artifact.countArtifactsForEachEngagement().forEach(e -> countMap.put(e.getType(), e.getCount()));
         return countMap;
@@ -268,8 +853,9 @@ public class ArtifactService {
      * 
      * @param cbo changes
      * @param incoming update artifacts
+     * @param summary records the uuid of the created, updated or deleted artifact
      */
-    void processObjectChange(ChangesByObject cbo, List<Artifact> incoming) {
+    void processObjectChange(ChangesByObject cbo, List<Artifact> incoming, ArtifactDiffSummary summary) {
 
         // get artifact uuid from global id
         String globalId = cbo.getGlobalId().value();
@@ -277,12 +863,22 @@ public class ArtifactService {
 
         if (!cbo.getObjectsRemoved().isEmpty()) {
 
+            Optional<Artifact> deleted = Artifact.findByUuid(aUuid);
             Artifact.deleteByUuid(aUuid);
+            deleted.ifPresent(a -> changeLog.record(List.of(ArtifactChange.delete(a))));
+            summary.getDeleted().add(aUuid);
 
         } else {
 
             // find artifact in incoming list and create or update in database
-            incoming.stream().filter(a -> aUuid.equals(a.getUuid())).findAny().ifPresent(this::createOrUpdateArtifact);
+            incoming.stream().filter(a -> aUuid.equals(a.getUuid())).findAny().ifPresent(a -> {
+                if (createOrUpdateArtifact(a)) {
+                    summary.getCreated().add(aUuid);
+                } else {
+                    summary.getUpdated().add(aUuid);
+                }
+                changeLog.record(List.of(ArtifactChange.upsert(a)));
+            });
 
         }
 
@@ -293,16 +889,42 @@ public class ArtifactService {
      * Creates or updates the {@link Artifact} in the database.
      * 
      * @param artifact
+     * @return true if the artifact was created, false if it was updated
      */
-    void createOrUpdateArtifact(Artifact artifact) {
+    boolean createOrUpdateArtifact(Artifact artifact) {
 
         Optional<Artifact> persisted = Artifact.findByUuid(artifact.getUuid());
         if (persisted.isPresent()) {
             updateArtifact(artifact, persisted.get());
-        } else {
+            return false;
+        }
+
+        createArtifact(artifact);
+        return true;
+
+    }
+
+    /**
+     * Creates or updates an {@link Artifact} read from GitLab, leaving the stored
+     * copy untouched if its content is the same.
+     * 
+     * @param artifact
+     * @return true if the artifact was created or changed
+     */
+    boolean reloadArtifact(Artifact artifact) {
+
+        Optional<Artifact> persisted = Artifact.findByUuid(artifact.getUuid());
+        if (persisted.isEmpty()) {
             createArtifact(artifact);
+            return true;
         }
 
+        if (artifact.hasSameContent(persisted.get())) {
+            return false;
+        }
+
+        updateArtifact(artifact, persisted.get());
+        return true;
     }
 
     /**
@@ -313,7 +935,7 @@ public class ArtifactService {
      */
     void createArtifact(Artifact artifact) {
 
-        String now = getNowAsZulu();
+        Instant now = Timestamps.now();
 
         if (null == artifact.getUuid()) {
             artifact.setUuid(UUID.randomUUID().toString());
@@ -341,7 +963,7 @@ public class ArtifactService {
 
         artifact.setId(existing.getId());
         artifact.setCreated(existing.getCreated());
-        artifact.setModified(getNowAsZulu());
+        artifact.setModified(Timestamps.now());
 
         artifact.update();
 
@@ -349,58 +971,186 @@ public class ArtifactService {
 
     /**
      * Updates the artifacts file in GitLab with the given {@link List} of
-     * {@link Artifact}s.
+     * {@link Artifact}s. If GitLab is unavailable the commit is queued and
+     * retried by {@link #retryPendingCommits()}. The engagement lookup and legacy
+     * file fetch run in parallel with reading the artifacts, and the commit is
+     * also queued if they take longer than the prepare timeout.
      * 
      * @param engagementUuid
      * @param authorEmail
      * @param authorName
      * @param commitMessage
      */
+    @Traced
+    @Fallback(fallbackMethod = "queueArtifactsFile", applyOn = { CircuitBreakerOpenException.class,
+            BulkheadException.class, ServerErrorException.class, ProcessingException.class })
     public void updateArtifactsFile(String engagementUuid, String authorEmail,
             String authorName, Optional<String> commitMessage) {
 
-        // find project by engagement
-        Engagement project = engagementRestClient.getEngagementByUuid(engagementUuid);
-
-        List<Artifact> artifacts = Artifact.findAllByEngagementUuid(engagementUuid);
-        String content = jsonb.toJson(artifacts);
+        // the engagement and legacy file are fetched while the artifacts are read and serialized
+        CommitPreparation preparation = new CommitPreparation(commitPreparation);
+        CompletableFuture<String> contentStep = preparation.supply(() -> serializeArtifacts(engagementUuid));
+        CompletableFuture<Optional<String>> committedStep = preparation
+                .supply(() -> EngagementBlob.findBlobId(engagementUuid));
+        CompletableFuture<Engagement> projectStep = preparation
+                .supply(() -> engagementLookup.getEngagement(engagementUuid));
+        CompletableFuture<Optional<Action>> legacyStep = preparation.then(projectStep,
+                p -> createLegacyEngagementAction(p.getProjectId(), contentStep));
+
+        awaitCommitPreparation(engagementUuid, preparation, contentStep, committedStep, projectStep, legacyStep);
+
+        Engagement project = projectStep.join();
+        String content = contentStep.join();
+
+        // actions whose content is already what git has would commit nothing
+        List<Action> actions = new ArrayList<>();
+        String blobId = ArtifactHashes.gitBlobId(content);
+        if (committedStep.join().filter(blobId::equals).isPresent()) {
+            metrics.recordSkippedAction(artifactsFile);
+        } else {
+            actions.add(Action.builder().filePath(artifactsFile).content(content).build());
+        }
+        legacyStep.join().ifPresentOrElse(actions::add, () -> metrics.recordSkippedAction(LEGACY_ENGAGEMENT_FILE));
 
-        List<Action> actions = List.of(
-                Action.builder().filePath(artifactsFile).content(content).build(),
-                createLegacyEngagementAction(project.getProjectId(), content)
-        );
+        if (actions.isEmpty()) {
+            LOGGER.debug("Artifacts for engagement {} unchanged in git. Commit skipped", engagementUuid);
+            metrics.recordSkippedCommit();
+            PendingCommit.remove(engagementUuid);
+            return;
+        }
 
         Commit commit = Commit.builder().commitMessage(commitMessage.orElse("Artifact Update")).branch(defaultBranch)
                 .authorEmail(authorEmail).authorName(authorName).actions(actions).build();
 
         // update in git
+        GitlabCommitEvent commitEvent = GitlabCommitEvent.start(engagementUuid, project.getProjectId(), actions.size(),
+                actions.stream().mapToLong(a -> a.getContent().length()).sum());
         gitlabRestClient.createCommit(project.getProjectId(), commit);
+        commitEvent.finish();
+
+        // the file is now this content so later reconciles need not reload it
+        EngagementBlob.saveBlobId(engagementUuid, project.getProjectId(), blobId);
+
+        // the commit is built from the database so it includes anything queued earlier
+        PendingCommit.remove(engagementUuid);
     }
 
-    Action createLegacyEngagementAction(long projectId, String artifactContent) {
-        File f = gitlabRestClient.getFile(projectId, "engagement.json", defaultBranch);
-        f.decodeFileAttributes();
+    String serializeArtifacts(String engagementUuid) {
+        List<Artifact> artifacts = Artifact.findAllByEngagementUuid(engagementUuid);
+        SerializationEvent serialization = SerializationEvent.start(engagementUuid, artifacts.size());
+        String content = jsonb.toJson(artifacts);
+        serialization.finish(content.length());
+        return content;
+    }
 
-        JsonElement element = gson.fromJson(f.getContent(), JsonElement.class);
-        JsonObject engagement = element.getAsJsonObject();
+    /**
+     * Waits for the steps preparing a commit. A step's exception is rethrown as
+     * is. If the steps run past the timeout the preparation is abandoned and a
+     * {@link ProcessingException} is thrown so the commit is queued. Steps still
+     * running only read, so they are left to finish.
+     * 
+     * @param engagementUuid
+     * @param preparation
+     * @param steps
+     */
+    void awaitCommitPreparation(String engagementUuid, CommitPreparation preparation, CompletableFuture<?>... steps) {
 
-        element = gson.fromJson(artifactContent, JsonElement.class);
+        CompletableFuture<Void> all = CompletableFuture.allOf(steps);
 
-        engagement.add("artifacts", element);
-        JsonObject sorted = new JsonObject();
-        engagement.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(es -> sorted.add(es.getKey(), es.getValue()));
+        try {
+            all.get(commitPrepareTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            preparation.finish();
+        } catch (TimeoutException e) {
+            preparation.abandon();
+            throw new ProcessingException("Timed out after " + commitPrepareTimeout
+                    + " preparing artifacts commit for engagement " + engagementUuid, e);
+        } catch (ExecutionException e) {
+            preparation.abandon();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ProcessingException(e.getCause());
+        } catch (InterruptedException e) {
+            preparation.abandon();
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted preparing artifacts commit for engagement " + engagementUuid, e);
+        }
+    }
 
-        return Action.builder().filePath("engagement.json").content(gson.toJson(sorted)).build();
+    void queueArtifactsFile(String engagementUuid, String authorEmail, String authorName,
+            Optional<String> commitMessage) {
+        LOGGER.warn("GitLab unavailable. Queued artifacts commit for engagement {}", engagementUuid);
+        PendingCommit.queue(engagementUuid, authorEmail, authorName, commitMessage.orElse("Artifact Update"));
+        metrics.recordQueuedCommit();
+    }
 
+    /**
+     * Retries the artifacts file commits queued while GitLab was unavailable.
+     * Commits that fail again stay queued. Only the replica holding the
+     * {@link LeaderElection#COMMIT_RETRY} lease retries.
+     */
+    @Scheduled(every = "{commit.retry.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void retryPendingCommits() {
+        leaderElection.runAsLeader(LeaderElection.COMMIT_RETRY, () -> {
+            retryPending();
+            return true;
+        });
+    }
+
+    void retryPending() {
+
+        List<PendingCommit> pending = PendingCommit.findAllPending();
+        metrics.updatePendingCommits(pending.size());
+
+        pending.forEach(p -> {
+            LOGGER.debug("Retrying artifacts commit for engagement {} (attempt {})", p.getEngagementUuid(), p.getAttempts() + 1);
+            updateArtifactsFile(p.getEngagementUuid(), p.getAuthorEmail(), p.getAuthorName(), Optional.ofNullable(p.getCommitMessage()));
+        });
     }
 
     /**
-     * Returns a {@link String} representing the current Zulu time.
+     * Returns the action updating the artifacts in the legacy engagement file, or
+     * empty if the file already has them. The file is fetched before waiting for
+     * the artifact content.
      * 
+     * @param projectId
+     * @param artifactContent
      * @return
      */
-    String getNowAsZulu() {
-        return LocalDateTime.now(ZoneId.of("Z")).toString();
+    @Traced
+    Optional<Action> createLegacyEngagementAction(long projectId, CompletableFuture<String> artifactContent) {
+        File f = gitlabRestClient.getFile(projectId, LEGACY_ENGAGEMENT_FILE, defaultBranch);
+        f.decodeFileAttributes();
+
+        String content = mergeLegacyEngagement(f.getContent(), artifactContent.join());
+        if (ArtifactHashes.gitBlobId(content).equals(f.getBlobId())) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Action.builder().filePath(LEGACY_ENGAGEMENT_FILE).content(content).build());
+
+    }
+
+    /**
+     * Returns the legacy engagement json with its artifacts replaced by the
+     * artifact content and its keys sorted.
+     * 
+     * @param engagementContent
+     * @param artifactContent
+     * @return
+     */
+    String mergeLegacyEngagement(String engagementContent, String artifactContent) {
+
+        JsonElement element = gson.fromJson(engagementContent, JsonElement.class);
+        JsonObject engagement = element.getAsJsonObject();
+
+        element = gson.fromJson(artifactContent, JsonElement.class);
+
+        engagement.add("artifacts", element);
+        JsonObject sorted = new JsonObject();
+        engagement.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(es -> sorted.add(es.getKey(), es.getValue()));
+
+        return gson.toJson(sorted);
     }
 
 }
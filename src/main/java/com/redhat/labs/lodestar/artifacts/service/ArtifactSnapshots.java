@@ -0,0 +1,254 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoCursor;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.EngagementBlob;
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
+
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Saves the artifacts collection to a gzipped NDJSON file so an empty database
+ * can be restored in seconds instead of refreshed from GitLab.
+ *
+ * The first line is a header holding the format version, when the snapshot was
+ * taken and the GitLab blob id each engagement was loaded from. Every other
+ * line is one artifact document in extended JSON. Blob ids are read before the
+ * artifacts, so an engagement reloaded while the snapshot is written looks
+ * changed and is reloaded again by the reconcile that follows a restore.
+ */
+@ApplicationScoped
+public class ArtifactSnapshots {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSnapshots.class);
+
+    private static final int VERSION = 1;
+    private static final int BATCH_SIZE = 1000;
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED)
+            .build();
+
+    private static final String ENGAGEMENT_UUID = "engagementUuid";
+    private static final String PROJECT_ID = "projectId";
+    private static final String BLOB_ID = "blobId";
+    private static final String CONTENT_HASH = "contentHash";
+
+    @ConfigProperty(name = "artifacts.snapshot.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "artifacts.snapshot.file", defaultValue = "artifacts-snapshot.ndjson.gz")
+    String file;
+
+    @Inject
+    ArtifactChangeBus changeBus;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @Inject
+    ArtifactChangeLog changeLog;
+
+    private volatile boolean restoring = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns true until the startup restore has finished, so nothing refreshes
+     * the database from GitLab while it is being restored.
+     *
+     * @return
+     */
+    public boolean isRestoring() {
+        return enabled && restoring;
+    }
+
+    @Scheduled(every = "{artifacts.snapshot.interval}", delayed = "{artifacts.snapshot.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void scheduledWrite() {
+
+        if (!enabled || isRestoring() || Artifact.count() == 0) {
+            return;
+        }
+
+        try {
+            write();
+        } catch (UncheckedIOException e) {
+            LOGGER.error("Unable to write artifact snapshot {}", file, e);
+        }
+    }
+
+    /**
+     * Writes every artifact and engagement blob id to the snapshot file, replacing
+     * the previous snapshot only once the new one is complete.
+     *
+     * @return the number of artifacts written
+     */
+    public synchronized long write() {
+
+        long start = System.currentTimeMillis();
+        Path path = path();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long count = 0;
+
+        List<Document> blobs = EngagementBlob.findAllBlobs().stream()
+                .map(b -> new Document(ENGAGEMENT_UUID, b.getEngagementUuid()).append(PROJECT_ID, b.getProjectId())
+                        .append(BLOB_ID, b.getBlobId()).append(CONTENT_HASH, b.getContentHash()))
+                .collect(Collectors.toList());
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8));
+                    MongoCursor<Document> cursor = Artifact.cursorAllDocuments(BATCH_SIZE)) {
+
+                writeLine(writer, new Document("version", VERSION)
+                        .append("created", LocalDateTime.now(ZoneId.of("Z")).toString()).append("blobs", blobs));
+
+                while (cursor.hasNext()) {
+                    writeLine(writer, cursor.next());
+                    count++;
+                }
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write artifact snapshot " + path, e);
+        }
+
+        LOGGER.debug("Wrote {} artifacts to snapshot {} in {} ms", count, path, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * Restores the snapshot with bulk inserts if the database has no artifacts.
+     * Anything partly restored is removed again if the snapshot cannot be read.
+     * Restores under the refresh lease so replicas starting together into an empty
+     * database do not restore twice.
+     *
+     * @return the number of artifacts restored
+     */
+    public long restoreIfEmpty() {
+
+        try {
+            if (!enabled) {
+                return 0;
+            }
+
+            Path path = path();
+            if (!Files.isReadable(path)) {
+                LOGGER.info("No artifact snapshot at {}", path);
+                return 0;
+            }
+
+            return leaderElection.runAsLeader(LeaderElection.REFRESH, () -> Artifact.count() > 0 ? 0L : restore(path))
+                    .orElse(0L);
+
+        } finally {
+            restoring = false;
+        }
+    }
+
+    long restore(Path path) {
+
+        long start = System.currentTimeMillis();
+        long count = 0;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+
+            String line = reader.readLine();
+            Document header = null == line ? null : Document.parse(line);
+            if (null == header || VERSION != header.getInteger("version", 0)) {
+                LOGGER.warn("Ignoring artifact snapshot {} with unknown format", path);
+                return 0;
+            }
+
+            List<Document> batch = new ArrayList<>(BATCH_SIZE);
+            while (null != (line = reader.readLine())) {
+
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                batch.add(Document.parse(line));
+                if (batch.size() == BATCH_SIZE) {
+                    Artifact.insertDocuments(batch);
+                    count += batch.size();
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                Artifact.insertDocuments(batch);
+                count += batch.size();
+            }
+
+            List<EngagementBlob> blobs = header.getList("blobs", Document.class, List.of()).stream()
+                    .map(d -> EngagementBlob.builder().engagementUuid(d.getString(ENGAGEMENT_UUID))
+                            .projectId(d.get(PROJECT_ID, Number.class).longValue()).blobId(d.getString(BLOB_ID))
+                            .contentHash(d.getString(CONTENT_HASH))
+                            .updated(Timestamps.parse(header.getString("created"))).build())
+                    .collect(Collectors.toList());
+            EngagementBlob.removeAllBlobs();
+            if (!blobs.isEmpty()) {
+                EngagementBlob.persist(blobs);
+            }
+
+            LOGGER.info("Restored {} artifacts from snapshot {} taken {} in {} ms", count, path,
+                    header.getString("created"), System.currentTimeMillis() - start);
+
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to restore artifact snapshot {}. Falling back to a full refresh", path, e);
+            Artifact.removeAllArtifacts();
+            EngagementBlob.removeAllBlobs();
+            count = 0;
+        }
+
+        // restored artifacts have no changes behind them
+        changeLog.reset();
+        changeBus.publishAll();
+        return count;
+    }
+
+    Path path() {
+        return Paths.get(file).toAbsolutePath();
+    }
+
+    void writeLine(Writer writer, Document document) throws IOException {
+        writer.write(document.toJson(JSON));
+        writer.write('\n');
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * CDI event published by {@link ArtifactChangeBus} when the artifacts of one or
+ * more engagements have changed. If all is set, any engagement may have changed
+ * and consumers should discard everything they hold.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ArtifactsChanged {
+
+    private final Set<String> engagementUuids;
+    private final boolean all;
+
+    public static ArtifactsChanged of(Collection<String> engagementUuids) {
+        return new ArtifactsChanged(Set.copyOf(engagementUuids), false);
+    }
+
+    public static ArtifactsChanged all() {
+        return new ArtifactsChanged(Set.of(), true);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.redhat.labs.lodestar.artifacts.metrics.ServerTimings;
+
+/**
+ * The steps preparing one artifacts commit, run in parallel on the shared
+ * executor. Steps need no request context, so they are safe to finish after the
+ * request has given up on them. Their timings are kept apart and only added to
+ * the request once every step is done. Once abandoned, steps that have not
+ * started fail with a {@link CancellationException} instead of running.
+ */
+final class CommitPreparation {
+
+    private final Executor executor;
+    private final ServerTimings timings = new ServerTimings();
+    private volatile boolean abandoned;
+
+    CommitPreparation(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a step.
+     *
+     * @param <T>
+     * @param step
+     * @return
+     */
+    <T> CompletableFuture<T> supply(Supplier<T> step) {
+        return CompletableFuture.supplyAsync(() -> run(step), executor);
+    }
+
+    /**
+     * Starts a step once the previous one is done, with its result.
+     *
+     * @param <T>
+     * @param <U>
+     * @param previous
+     * @param step
+     * @return
+     */
+    <T, U> CompletableFuture<U> then(CompletableFuture<T> previous, Function<T, U> step) {
+        return previous.thenApplyAsync(result -> run(() -> step.apply(result)), executor);
+    }
+
+    /**
+     * Stops steps that have not started from running. Steps already running are
+     * left to finish and their timings are dropped.
+     */
+    void abandon() {
+        abandoned = true;
+    }
+
+    /**
+     * Adds the time the steps spent to the current request.
+     */
+    void finish() {
+        ServerTimings.current().ifPresent(t -> t.addAll(timings));
+    }
+
+    private <T> T run(Supplier<T> step) {
+        if (abandoned) {
+            throw new CancellationException("Commit preparation abandoned");
+        }
+        return ServerTimings.recordInto(timings, step);
+    }
+
+}
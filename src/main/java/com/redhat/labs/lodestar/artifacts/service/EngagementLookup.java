@@ -0,0 +1,199 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.ServerErrorException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Engagement;
+import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
+
+/**
+ * Calls the Engagement API, remembering every engagement returned so lookups
+ * can be served from memory while the API is unavailable.
+ */
+@ApplicationScoped
+public class EngagementLookup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngagementLookup.class);
+
+    @Inject
+    @RestClient
+    EngagementApiRestClient engagementRestClient;
+
+    private static final int FIRST_PAGE = 1;
+    private static final GenericType<List<Engagement>> ENGAGEMENT_LIST = new GenericType<>() {
+    };
+
+    @ConfigProperty(name = "engagement.api.page.size", defaultValue = "100")
+    int pageSize;
+
+    private final Map<String, Engagement> engagements = new ConcurrentHashMap<>();
+
+    /**
+     * Returns all engagements, or the last known engagements if the Engagement API
+     * is unavailable.
+     * 
+     * @return
+     */
+    public List<Engagement> getAllEngagements() {
+        List<Engagement> all = new ArrayList<>();
+        forEachEngagementPage(all::addAll);
+        return all;
+    }
+
+    /**
+     * Passes every engagement to the consumer a page at a time, as soon as each
+     * page arrives, following the Link headers of the Engagement API. If the API
+     * becomes unavailable part way, the last known engagements not yet passed
+     * are used for the rest. Exceptions thrown by the consumer are passed on.
+     * 
+     * @param consumer
+     */
+    public void forEachEngagementPage(Consumer<List<Engagement>> consumer) {
+
+        Set<String> seen = new HashSet<>();
+        Integer page = FIRST_PAGE;
+
+        while (null != page) {
+
+            List<Engagement> engagements;
+            Optional<Integer> next;
+
+            // only a failed fetch means the API is down, the consumer's failures are passed on
+            try {
+                Response response = engagementRestClient.getEngagementPage(page, pageSize);
+                try {
+                    engagements = response.readEntity(ENGAGEMENT_LIST);
+                    next = nextPage(response);
+                } finally {
+                    response.close();
+                }
+            } catch (CircuitBreakerOpenException | BulkheadException | ServerErrorException | ProcessingException e) {
+                List<Engagement> remaining = getCachedEngagements().stream().filter(en -> !seen.contains(keyOf(en)))
+                        .collect(Collectors.toList());
+                if (!remaining.isEmpty()) {
+                    consumer.accept(remaining);
+                }
+                return;
+            }
+
+            List<Engagement> unseen = engagements.stream().filter(e -> seen.add(keyOf(e)))
+                    .collect(Collectors.toList());
+            unseen.forEach(this::remember);
+            if (!unseen.isEmpty()) {
+                consumer.accept(unseen);
+            }
+
+            // without a Link header keep going while pages are full, stopping if paging was ignored
+            int current = page;
+            page = next.orElse(engagements.size() < pageSize || unseen.isEmpty() ? null : current + 1);
+        }
+
+    }
+
+    /**
+     * Returns the page of the next relation in the Link header, if there is one.
+     * 
+     * @param response
+     * @return
+     */
+    Optional<Integer> nextPage(Response response) {
+
+        Link next = response.getLink("next");
+        if (null == next || null == next.getUri().getRawQuery()) {
+            return Optional.empty();
+        }
+
+        return Arrays.stream(next.getUri().getRawQuery().split("&")).filter(p -> p.startsWith("page="))
+                .map(p -> p.substring("page=".length())).filter(p -> p.matches("[0-9]+")).map(Integer::valueOf)
+                .findFirst();
+    }
+
+    String keyOf(Engagement engagement) {
+        return null == engagement.getUuid() ? "project:" + engagement.getProjectId() : engagement.getUuid();
+    }
+
+    /**
+     * Returns the engagement, or the last known copy if the Engagement API is
+     * unavailable.
+     * 
+     * @param engagementUuid
+     * @return
+     */
+    @Fallback(fallbackMethod = "getCachedEngagement", applyOn = { CircuitBreakerOpenException.class,
+            BulkheadException.class, ServerErrorException.class, ProcessingException.class })
+    public Engagement getEngagement(String engagementUuid) {
+        Engagement engagement = engagementRestClient.getEngagementByUuid(engagementUuid);
+        remember(engagement);
+        return engagement;
+    }
+
+    /**
+     * Tells the Engagement API how many artifacts the engagement has. The count is
+     * informational so it is skipped if the API is unavailable.
+     * 
+     * @param engagementUuid
+     * @param count
+     */
+    @Fallback(fallbackMethod = "skipArtifactCount", applyOn = { CircuitBreakerOpenException.class,
+            BulkheadException.class, ServerErrorException.class, ProcessingException.class })
+    public void updateArtifactCount(String engagementUuid, int count) {
+        engagementRestClient.updateEngagement(engagementUuid, count);
+    }
+
+    List<Engagement> getCachedEngagements() {
+
+        if (engagements.isEmpty()) {
+            throw new WebApplicationException("Engagement API unavailable and no engagements cached", 503);
+        }
+
+        LOGGER.warn("Engagement API unavailable. Using {} cached engagements", engagements.size());
+        return new ArrayList<>(engagements.values());
+    }
+
+    Engagement getCachedEngagement(String engagementUuid) {
+
+        Engagement engagement = engagements.get(engagementUuid);
+        if (null == engagement) {
+            throw new WebApplicationException(
+                    "Engagement API unavailable and engagement " + engagementUuid + " not cached", 503);
+        }
+
+        LOGGER.warn("Engagement API unavailable. Using cached engagement {}", engagementUuid);
+        return engagement;
+    }
+
+    void skipArtifactCount(String engagementUuid, int count) {
+        LOGGER.warn("Engagement API unavailable. Artifact count {} not sent for engagement {}", count, engagementUuid);
+    }
+
+    void remember(Engagement engagement) {
+        if (null != engagement && null != engagement.getUuid()) {
+            engagements.put(engagement.getUuid(), engagement);
+        }
+    }
+
+}
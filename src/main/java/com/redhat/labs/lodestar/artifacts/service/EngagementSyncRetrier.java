@@ -0,0 +1,179 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.metrics.ArtifactMetrics;
+import com.redhat.labs.lodestar.artifacts.model.Engagement;
+import com.redhat.labs.lodestar.artifacts.model.EngagementSyncState;
+import com.redhat.labs.lodestar.artifacts.rest.client.GitlabRateLimiter;
+
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Records the outcome of each engagement reload in {@link EngagementSyncState}
+ * and retries failed engagements on their own, so a GitLab hiccup heals
+ * without another full refresh.
+ *
+ * Retries back off exponentially from the initial delay up to the maximum,
+ * with jitter so engagements that failed together are not all retried
+ * together.
+ */
+@ApplicationScoped
+public class EngagementSyncRetrier {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngagementSyncRetrier.class);
+
+    @ConfigProperty(name = "sync.retry.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "sync.retry.initial.delay", defaultValue = "30s")
+    Duration initialDelay;
+
+    @ConfigProperty(name = "sync.retry.max.delay", defaultValue = "1h")
+    Duration maxDelay;
+
+    @ConfigProperty(name = "sync.retry.batch.size", defaultValue = "50")
+    int batchSize;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @Inject
+    ArtifactChangeBus changeBus;
+
+    @Inject
+    GitlabRateLimiter rateLimiter;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @Inject
+    ArtifactMetrics metrics;
+
+    public void recordSuccess(Engagement engagement) {
+        if (null != engagement.getUuid()) {
+            EngagementSyncState.recordSuccess(engagement.getUuid(), engagement.getProjectId());
+        }
+    }
+
+    /**
+     * Records the failure and schedules the engagement's next retry.
+     *
+     * @param engagement
+     * @param error
+     */
+    public void recordFailure(Engagement engagement, String error) {
+
+        if (null == engagement.getUuid()) {
+            return;
+        }
+
+        EngagementSyncState state = EngagementSyncState.recordFailure(engagement.getUuid(),
+                engagement.getProjectId(), error);
+        Duration delay = backoff(state.getAttempts(), ThreadLocalRandom.current().nextDouble());
+        EngagementSyncState.scheduleRetry(engagement.getUuid(), new Date(System.currentTimeMillis() + delay.toMillis()));
+
+        LOGGER.debug("Engagement {} failed to sync {} times ({}). Retrying in {}", engagement.getUuid(),
+                state.getAttempts(), error, delay);
+    }
+
+    /**
+     * Records that the engagement has no artifacts file. It is not retried, but
+     * stays unhealthy until a refresh finds the file.
+     *
+     * @param engagement
+     * @param error
+     */
+    public void recordMissing(Engagement engagement, String error) {
+        if (null != engagement.getUuid()) {
+            EngagementSyncState.recordMissing(engagement.getUuid(), engagement.getProjectId(), error);
+        }
+    }
+
+    /**
+     * Returns the delay before the next retry after the given number of failures
+     * in a row: the initial delay doubled per failure, capped at the maximum, of
+     * which a random half is taken off.
+     *
+     * @param attempts
+     * @param random   between 0 and 1
+     * @return
+     */
+    Duration backoff(int attempts, double random) {
+
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        long delay = Math.min(maxDelay.toMillis(), initialDelay.toMillis() << doublings);
+        if (delay < 0) {
+            delay = maxDelay.toMillis();
+        }
+
+        return Duration.ofMillis(delay / 2 + (long) (random * (delay / 2)));
+    }
+
+    /**
+     * Reloads the failed engagements that are due a retry. Only the replica
+     * holding the {@link LeaderElection#SYNC_RETRY} lease retries.
+     */
+    @Scheduled(every = "{sync.retry.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void retryFailed() {
+
+        metrics.updateUnhealthyEngagements(EngagementSyncState.countFailed());
+
+        if (enabled) {
+            leaderElection.runAsLeader(LeaderElection.SYNC_RETRY, this::retryDue);
+        }
+    }
+
+    /**
+     * Reloads the failed engagements due a retry and returns the number that
+     * recovered.
+     *
+     * @return
+     */
+    int retryDue() {
+
+        List<EngagementSyncState> due = EngagementSyncState.findDueForRetry(new Date(), batchSize);
+        Set<String> recovered = new HashSet<>();
+
+        for (EngagementSyncState state : due) {
+
+            Engagement engagement = new Engagement();
+            engagement.setUuid(state.getEngagementUuid());
+            engagement.setProjectId(state.getProjectId());
+
+            try {
+                rateLimiter.limited(() -> {
+                    artifactService.reloadFromGitlabByEngagement(engagement);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // the failure and next retry are recorded by the reload
+                LOGGER.debug("Retry of engagement {} failed", engagement.getUuid(), e);
+            }
+
+            if (EngagementSyncState.isHealthy(engagement.getUuid())) {
+                recovered.add(engagement.getUuid());
+            }
+        }
+
+        if (!due.isEmpty()) {
+            LOGGER.info("Retried {} failed engagements. {} recovered", due.size(), recovered.size());
+            changeBus.publish(recovered);
+        }
+
+        return recovered.size();
+    }
+
+}
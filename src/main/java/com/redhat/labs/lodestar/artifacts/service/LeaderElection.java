@@ -0,0 +1,218 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.ws.rs.WebApplicationException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Lease;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Makes sure work that must only run once across replicas, such as a refresh
+ * from GitLab, runs on a single replica at a time by holding a {@link Lease}
+ * while it runs.
+ *
+ * Held leases are renewed in the background. If the replica dies its leases
+ * expire and another replica takes over. Leases are released on shutdown so a
+ * rolling deploy fails over straight away.
+ */
+@ApplicationScoped
+public class LeaderElection {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeaderElection.class);
+
+    public static final String REFRESH = "refresh";
+    public static final String COMMIT_RETRY = "commit-retry";
+    public static final String SYNC_RETRY = "sync-retry";
+    public static final String TIMESTAMP_MIGRATION = "timestamp-migration";
+
+    @ConfigProperty(name = "leader.election.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "leader.lease.duration", defaultValue = "60s")
+    Duration leaseDuration;
+
+    final String holder = System.getenv().getOrDefault("HOSTNAME", "artifacts") + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    // fencing token of each lease this replica holds
+    private final Map<String, Long> held = new ConcurrentHashMap<>();
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            Lease.createIndexes();
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        held.keySet().forEach(this::release);
+    }
+
+    /**
+     * Runs the task if this replica can take the lease, holding the lease until
+     * the task ends. Returns empty without running the task if another replica,
+     * or another thread here, holds the lease. The task runs directly when the
+     * current thread already holds the lease. The task must not return null.
+     *
+     * @param <T>
+     * @param lease
+     * @param task
+     * @return
+     */
+    public <T> Optional<T> runAsLeader(String lease, Supplier<T> task) {
+
+        if (!enabled) {
+            return Optional.of(task.get());
+        }
+
+        ReentrantLock lock = locks.computeIfAbsent(lease, l -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            return Optional.empty();
+        }
+
+        try {
+            if (lock.getHoldCount() > 1) {
+                return Optional.of(task.get());
+            }
+
+            if (!acquire(lease)) {
+                LOGGER.debug("Lease {} is held by another replica", lease);
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.of(task.get());
+            } finally {
+                release(lease);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Throws a 409 unless this replica still holds the lease with the given
+     * token. Always asks the database, so it holds after the lease has been
+     * dropped locally.
+     *
+     * @param lease
+     * @param token
+     */
+    public void checkHeld(String lease, long token) {
+        if (enabled && !Lease.isHeld(lease, holder, token)) {
+            throw lost(lease);
+        }
+    }
+
+    /**
+     * Throws a 409 unless the lease still has the given token, whichever replica
+     * holds it. Lets work handed out by the holder check the holder has not been
+     * superseded.
+     *
+     * @param lease
+     * @param token
+     */
+    public void checkCurrent(String lease, long token) {
+        if (enabled && !Lease.isCurrent(lease, token)) {
+            throw new WebApplicationException("Lease " + lease + " token " + token + " superseded", 409);
+        }
+    }
+
+    /**
+     * Returns a check that throws a 409 once this replica no longer holds the
+     * lease with the token it holds now. The token is captured here, so the check
+     * keeps working after renewal finds the lease taken. The check does nothing
+     * if the lease is not held now, such as when leader election is disabled.
+     *
+     * @param lease
+     * @return
+     */
+    public Runnable fence(String lease) {
+        Optional<Long> token = currentToken(lease);
+        if (!enabled || token.isEmpty()) {
+            return () -> {
+            };
+        }
+        long fencingToken = token.get();
+        return () -> checkHeld(lease, fencingToken);
+    }
+
+    /**
+     * Returns the id this replica holds leases under.
+     *
+     * @return
+     */
+    public String getHolder() {
+        return holder;
+    }
+
+    /**
+     * Returns the fencing token of the lease if this replica holds it.
+     *
+     * @param lease
+     * @return
+     */
+    public Optional<Long> currentToken(String lease) {
+        return Optional.ofNullable(held.get(lease));
+    }
+
+    @Scheduled(every = "{leader.lease.renew.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void renewLeases() {
+        held.keySet().forEach(lease -> {
+            try {
+                if (!acquire(lease)) {
+                    LOGGER.warn("Lease {} was taken by another replica", lease);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to renew lease {}", lease, e);
+            }
+        });
+    }
+
+    boolean acquire(String lease) {
+
+        Optional<Lease> acquired = Lease.tryAcquire(lease, holder, leaseDuration);
+
+        if (acquired.isEmpty()) {
+            held.remove(lease);
+            return false;
+        }
+
+        Long previous = held.put(lease, acquired.get().getToken());
+        if (null == previous || previous != acquired.get().getToken()) {
+            LOGGER.info("{} took lease {} with token {}", holder, lease, acquired.get().getToken());
+        }
+        return true;
+    }
+
+    private WebApplicationException lost(String lease) {
+        return new WebApplicationException("Lease " + lease + " lost by " + holder, 409);
+    }
+
+    void release(String lease) {
+        if (null != held.remove(lease)) {
+            try {
+                Lease.release(lease, holder);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to release lease {}. It will expire", lease, e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Engagement;
+import com.redhat.labs.lodestar.artifacts.model.RefreshJob;
+import com.redhat.labs.lodestar.artifacts.model.RefreshTask;
+import com.redhat.labs.lodestar.artifacts.rest.client.GitlabRateLimiter;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Spreads a refresh over every replica. The replica starting the refresh queues
+ * a {@link RefreshTask} per engagement as each page of engagements arrives, and
+ * every replica claims and reloads tasks with up to its GitLab concurrency of
+ * workers. Claims are leased and kept alive by a heartbeat, so tasks held by a
+ * replica that dies are claimed again once their lease expires. Failed reloads
+ * are retried with backoff up to a maximum number of attempts.
+ *
+ * Progress is counted on a {@link RefreshJob} which the starting replica waits
+ * on. Tasks carry the refresh lease's fencing token, and a task whose token has
+ * been superseded writes nothing and is finished without a retry.
+ */
+@ApplicationScoped
+public class RefreshQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshQueue.class);
+
+    private static final long AWAIT_POLL_MILLIS = 250;
+
+    @ConfigProperty(name = "refresh.queue.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "refresh.queue.lease.duration", defaultValue = "2m")
+    Duration leaseDuration;
+
+    @ConfigProperty(name = "refresh.queue.max.attempts", defaultValue = "3")
+    int maxAttempts;
+
+    @ConfigProperty(name = "refresh.queue.retry.delay", defaultValue = "5s")
+    Duration retryDelay;
+
+    @ConfigProperty(name = "refresh.queue.wait.timeout", defaultValue = "30m")
+    Duration waitTimeout;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @Inject
+    EngagementLookup engagementLookup;
+
+    @Inject
+    GitlabRateLimiter rateLimiter;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    private final AtomicInteger workers = new AtomicInteger();
+    private final Set<ObjectId> claimed = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    void onStart(@Observes StartupEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        RefreshTask.createIndexes();
+        RefreshJob.createIndexes();
+
+        running = true;
+        executor = Executors.newFixedThreadPool(rateLimiter.getMaxConcurrency(), r -> {
+            Thread thread = new Thread(r, "artifact-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        executor.shutdownNow();
+
+        try {
+            // hand back unfinished tasks so other replicas need not wait for the leases to expire
+            RefreshTask.releaseAll(owner());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to release refresh tasks. They will be claimed again when their leases expire", e);
+        }
+    }
+
+    /**
+     * Returns true if refreshes should go through the queue.
+     *
+     * @return
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Queues a task for every engagement, works the queue alongside the other
+     * replicas and returns the job once all tasks are finished or the wait times
+     * out.
+     *
+     * @return
+     */
+    public RefreshJob refresh() {
+
+        String jobId = UUID.randomUUID().toString();
+        RefreshJob.start(jobId, owner());
+        AtomicLong total = new AtomicLong();
+        Long fencingToken = leaderElection.currentToken(LeaderElection.REFRESH).orElse(null);
+
+        engagementLookup.forEachEngagementPage(page -> {
+            total.addAndGet(RefreshTask.enqueue(jobId, fencingToken, page));
+            startWorkers();
+        });
+
+        RefreshJob.queued(jobId, total.get());
+        RefreshJob.completeIfFinished(jobId);
+        LOGGER.debug("Queued {} engagements for refresh job {}", total.get(), jobId);
+
+        return await(jobId);
+    }
+
+    RefreshJob await(String jobId) {
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+
+            RefreshJob job = RefreshJob.findJob(jobId)
+                    .orElseThrow(() -> new IllegalStateException("Refresh job " + jobId + " not found"));
+
+            if (RefreshJob.COMPLETE.equals(job.getStatus())) {
+                LOGGER.info("Refresh job {} complete. {} of {} engagements reloaded, {} failed, {} superseded",
+                        jobId, job.getCompleted(), job.getTotal(), job.getFailed(), job.getSuperseded());
+                return job;
+            }
+
+            if (System.nanoTime() > deadline) {
+                LOGGER.warn("Gave up waiting for refresh job {} after {}. {} of {} engagements finished", jobId,
+                        waitTimeout, job.getCompleted() + job.getFailed(), job.getTotal());
+                return job;
+            }
+
+            // tasks whose leases expired on other replicas are claimable again
+            startWorkers();
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(AWAIT_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for refresh job " + jobId, e);
+            }
+        }
+    }
+
+    /**
+     * Picks up tasks queued by other replicas.
+     */
+    @Scheduled(every = "{refresh.queue.poll.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void poll() {
+        startWorkers();
+    }
+
+    /**
+     * Extends the leases of the tasks this replica is working on.
+     */
+    @Scheduled(every = "{refresh.queue.heartbeat.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void heartbeat() {
+        if (running) {
+            RefreshTask.heartbeat(owner(), Set.copyOf(claimed), leaseDuration);
+        }
+    }
+
+    /**
+     * Starts workers until the maximum number are running. Each works the queue
+     * until it finds nothing to claim.
+     */
+    void startWorkers() {
+
+        if (!running) {
+            return;
+        }
+
+        for (int current = workers.get(); current < rateLimiter.getMaxConcurrency(); current = workers.get()) {
+            if (workers.compareAndSet(current, current + 1)) {
+                executor.execute(this::work);
+            }
+        }
+    }
+
+    void work() {
+        try {
+            for (Optional<RefreshTask> task = claim(); task.isPresent(); task = claim()) {
+                process(task.get());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Refresh worker stopped", e);
+        } finally {
+            workers.decrementAndGet();
+        }
+    }
+
+    Optional<RefreshTask> claim() {
+        return running ? RefreshTask.claim(owner(), leaseDuration) : Optional.empty();
+    }
+
+    void process(RefreshTask task) {
+
+        claimed.add(task.getId());
+
+        try {
+            Engagement engagement = new Engagement();
+            engagement.setUuid(task.getEngagementUuid());
+            engagement.setProjectId(task.getProjectId());
+
+            rateLimiter.limited(() -> {
+                // a claim that outlived its lease may already be another replica's
+                if (task.isClaimed()) {
+                    artifactService.reloadFromGitlabByEngagement(engagement, fence(task));
+                }
+                return null;
+            });
+
+            if (task.complete()) {
+                RefreshJob.recordCompleted(task.getJobId());
+                RefreshJob.completeIfFinished(task.getJobId());
+            }
+
+        } catch (WebApplicationException e) {
+
+            if (e.getResponse().getStatus() != 409) {
+                retryOrFail(task, e);
+                return;
+            }
+
+            // the job was handed to a newer leader, which reloads the engagement itself
+            LOGGER.info("Refresh of engagement {} superseded. {}", task.getEngagementUuid(), e.getMessage());
+            if (task.supersede()) {
+                RefreshJob.recordSuperseded(task.getJobId());
+                RefreshJob.completeIfFinished(task.getJobId());
+            }
+
+        } catch (RuntimeException e) {
+            retryOrFail(task, e);
+        } finally {
+            claimed.remove(task.getId());
+        }
+    }
+
+    void retryOrFail(RefreshTask task, RuntimeException e) {
+
+        String error = String.valueOf(e.getMessage());
+
+        if (task.getAttempts() >= maxAttempts) {
+            LOGGER.error("Refresh of engagement {} failed after {} attempts", task.getEngagementUuid(),
+                    task.getAttempts(), e);
+            if (task.fail(error)) {
+                RefreshJob.recordFailed(task.getJobId());
+                RefreshJob.completeIfFinished(task.getJobId());
+            }
+        } else {
+            Duration delay = retryDelay.multipliedBy(1L << (task.getAttempts() - 1));
+            LOGGER.warn("Refresh of engagement {} failed ({}). Retrying in {}", task.getEngagementUuid(), error,
+                    delay);
+            task.retryAfter(error, delay);
+        }
+    }
+
+    Runnable fence(RefreshTask task) {
+        Long token = task.getFencingToken();
+        return null == token ? () -> {
+        } : () -> leaderElection.checkCurrent(LeaderElection.REFRESH, token);
+    }
+
+    String owner() {
+        return leaderElection.getHolder();
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.EngagementBlob;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
+
+/**
+ * Converts {@link Artifact} created and modified timestamps, and
+ * {@link EngagementBlob} updated times, stored as strings to BSON dates, in
+ * batches, in the background after startup. Until converted they still load
+ * but are not matched by range queries.
+ *
+ * The migration runs again on a schedule to pick up strings written by
+ * replicas still on an older version during a rolling update or restored from
+ * an older snapshot. Only the replica holding the
+ * {@link LeaderElection#TIMESTAMP_MIGRATION} lease migrates.
+ */
+@ApplicationScoped
+public class TimestampMigration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimestampMigration.class);
+
+    @ConfigProperty(name = "timestamps.migration.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "timestamps.migration.batch.size", defaultValue = "500")
+    int batchSize;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    private ExecutorService migrator;
+
+    void onStart(@Observes StartupEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        migrator = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "artifact-timestamp-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        migrator.submit(this::migrateAsLeader);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (null != migrator) {
+            migrator.shutdownNow();
+        }
+    }
+
+    @Scheduled(every = "{timestamps.migration.interval}", delayed = "{timestamps.migration.interval}",
+            concurrentExecution = ConcurrentExecution.SKIP)
+    void migrateAsLeader() {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            leaderElection.runAsLeader(LeaderElection.TIMESTAMP_MIGRATION, this::migrate);
+        } catch (RuntimeException e) {
+            LOGGER.error("Artifact timestamp migration failed", e);
+        }
+    }
+
+    /**
+     * Converts every artifact and engagement blob with a string timestamp and
+     * returns the number converted.
+     *
+     * @return
+     */
+    long migrate() {
+
+        long start = System.currentTimeMillis();
+        long migrated = 0;
+        int batch;
+
+        do {
+            batch = Artifact.migrateStringTimestamps(batchSize);
+            migrated += batch;
+        } while (batch == batchSize && !Thread.currentThread().isInterrupted());
+
+        if (migrated > 0) {
+            LOGGER.info("Converted the timestamps of {} artifacts to dates in {} ms", migrated,
+                    System.currentTimeMillis() - start);
+        }
+
+        long blobs = 0;
+        do {
+            batch = EngagementBlob.migrateStringTimestamps(batchSize);
+            blobs += batch;
+        } while (batch == batchSize && !Thread.currentThread().isInterrupted());
+
+        if (blobs > 0) {
+            LOGGER.info("Converted the updated times of {} engagement blobs to dates", blobs);
+        }
+
+        return migrated + blobs;
+    }
+
+}
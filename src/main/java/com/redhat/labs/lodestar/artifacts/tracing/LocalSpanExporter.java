@@ -0,0 +1,146 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Exporter for local testing without a collector. Set
+ * {@code tracing.local.exporter} to {@code file} to append finished spans as
+ * JSON lines to {@code tracing.local.file}, or to {@code memory} to keep the
+ * most recent spans available through {@link #getFinishedSpans()}.
+ */
+@ApplicationScoped
+public class LocalSpanExporter implements SpanExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalSpanExporter.class);
+
+    public static final String NONE = "none";
+    public static final String FILE = "file";
+    public static final String MEMORY = "memory";
+
+    @ConfigProperty(name = "tracing.local.exporter", defaultValue = NONE)
+    String mode;
+
+    @ConfigProperty(name = "tracing.local.file", defaultValue = "spans.json")
+    String file;
+
+    @ConfigProperty(name = "tracing.local.memory.max", defaultValue = "1000")
+    int maxSpans;
+
+    @Inject
+    Jsonb jsonb;
+
+    private final Deque<SpanData> finished = new ArrayDeque<>();
+    private BufferedWriter writer;
+
+    public boolean isEnabled() {
+        return FILE.equals(mode) || MEMORY.equals(mode);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+
+        if (MEMORY.equals(mode)) {
+            spans.forEach(span -> {
+                if (finished.size() >= maxSpans) {
+                    finished.removeFirst();
+                }
+                finished.addLast(span);
+            });
+        } else if (FILE.equals(mode)) {
+            try {
+                if (null == writer) {
+                    writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                for (SpanData span : spans) {
+                    writer.write(jsonb.toJson(toMap(span)));
+                    writer.newLine();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                LOGGER.error("Unable to write spans to {}", file, e);
+                return CompletableResultCode.ofFailure();
+            }
+        }
+
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Returns the spans kept in memory, oldest first.
+     * 
+     * @return
+     */
+    public synchronized List<SpanData> getFinishedSpans() {
+        return new ArrayList<>(finished);
+    }
+
+    public synchronized void reset() {
+        finished.clear();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+
+        if (null != writer) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to close span file {}", file, e);
+            }
+            writer = null;
+        }
+
+        return CompletableResultCode.ofSuccess();
+    }
+
+    Map<String, Object> toMap(SpanData span) {
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("trace_id", span.getTraceId());
+        map.put("span_id", span.getSpanId());
+        map.put("parent_span_id", span.getParentSpanId());
+        map.put("name", span.getName());
+        map.put("kind", span.getKind().name());
+        map.put("start_epoch_nanos", span.getStartEpochNanos());
+        map.put("duration_micros", TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()));
+        map.put("status", span.getStatus().getStatusCode().name());
+        map.put("attributes", attributes);
+        return map;
+    }
+
+}
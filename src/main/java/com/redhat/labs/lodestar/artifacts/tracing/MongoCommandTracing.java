@@ -0,0 +1,65 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+
+/**
+ * Starts a span for every command sent to Mongo. The synchronous driver
+ * notifies the listener on the calling thread, so command spans are children of
+ * the current span. Registered with the Mongo client by Quarkus.
+ */
+@ApplicationScoped
+public class MongoCommandTracing implements CommandListener {
+
+    private final Map<Integer, Span> spans = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+
+        Span span = Tracing.tracer().spanBuilder("mongodb." + event.getCommandName()).setSpanKind(SpanKind.CLIENT)
+                .setAttribute("db.system", "mongodb").setAttribute("db.name", event.getDatabaseName())
+                .setAttribute("db.operation", event.getCommandName())
+                .setAttribute("db.mongodb.collection", collection(event.getCommand(), event.getCommandName()))
+                .startSpan();
+
+        spans.put(event.getRequestId(), span);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Span span = spans.remove(event.getRequestId());
+        if (null != span) {
+            span.end();
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Span span = spans.remove(event.getRequestId());
+        if (null != span) {
+            span.setStatus(StatusCode.ERROR);
+            span.recordException(event.getThrowable());
+            span.end();
+        }
+    }
+
+    String collection(BsonDocument command, String commandName) {
+        BsonValue value = null == command ? null : command.get(commandName);
+        return null != value && value.isString() ? value.asString().getValue() : "";
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.propagation.TextMapSetter;
+
+/**
+ * Adds the request and response details to the client span started by
+ * {@link RestClientTracingInterceptor} and propagates the trace context to the
+ * called service in the request headers.
+ */
+public class RestClientTracingFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    static final ContextKey<Span> CLIENT_SPAN = ContextKey.named("rest-client-span");
+
+    private static final TextMapSetter<ClientRequestContext> SETTER = (request, key, value) -> request.getHeaders()
+            .putSingle(key, value);
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+
+        Span span = Context.current().get(CLIENT_SPAN);
+        if (null != span) {
+            span.setAttribute("http.method", requestContext.getMethod());
+            span.setAttribute("http.url", requestContext.getUri().toString());
+        }
+
+        GlobalOpenTelemetry.getPropagators().getTextMapPropagator().inject(Context.current(), requestContext, SETTER);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+
+        Span span = Context.current().get(CLIENT_SPAN);
+        if (null == span) {
+            return;
+        }
+
+        span.setAttribute("http.status_code", responseContext.getStatus());
+        if (responseContext.getStatus() >= 400) {
+            span.setStatus(StatusCode.ERROR);
+        }
+    }
+
+}
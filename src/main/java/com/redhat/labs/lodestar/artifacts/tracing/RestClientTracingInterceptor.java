@@ -0,0 +1,42 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import javax.annotation.Priority;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * Runs inside the fault tolerance interceptor so each retry gets its own span.
+ * The span is ended here rather than in the response filter so calls that fail
+ * without a response, such as a read timeout or refused connection, are still
+ * exported.
+ */
+@TracedClient
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 100)
+public class RestClientTracingInterceptor {
+
+    @AroundInvoke
+    Object trace(InvocationContext context) throws Exception {
+
+        String name = context.getMethod().getDeclaringClass().getSimpleName() + "." + context.getMethod().getName();
+        Span span = Tracing.tracer().spanBuilder(name).setSpanKind(SpanKind.CLIENT).startSpan();
+
+        try (Scope scope = Context.current().with(span).with(RestClientTracingFilter.CLIENT_SPAN, span).makeCurrent()) {
+            return context.proceed();
+        } catch (Exception e) {
+            span.setStatus(StatusCode.ERROR);
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+}
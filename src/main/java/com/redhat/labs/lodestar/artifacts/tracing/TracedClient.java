@@ -0,0 +1,20 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * Wraps each attempt of a call to the annotated REST client in a client span,
+ * which {@link RestClientTracingFilter} fills in from the request and response.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface TracedClient {
+}
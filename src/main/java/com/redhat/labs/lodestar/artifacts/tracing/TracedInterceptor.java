@@ -0,0 +1,34 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import javax.annotation.Priority;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class TracedInterceptor {
+
+    @AroundInvoke
+    Object trace(InvocationContext context) throws Exception {
+
+        String name = context.getMethod().getDeclaringClass().getSimpleName() + "." + context.getMethod().getName();
+        Span span = Tracing.tracer().spanBuilder(name).startSpan();
+
+        try (Scope scope = span.makeCurrent()) {
+            return context.proceed();
+        } catch (Exception e) {
+            span.setStatus(StatusCode.ERROR);
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+}
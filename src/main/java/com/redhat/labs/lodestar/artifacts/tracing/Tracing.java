@@ -0,0 +1,21 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Access to the {@link Tracer} for code that is not a CDI bean, such as REST
+ * client providers and Mongo listeners.
+ */
+public final class Tracing {
+
+    public static final String INSTRUMENTATION_NAME = "lodestar-artifacts";
+
+    private Tracing() {
+    }
+
+    public static Tracer tracer() {
+        return GlobalOpenTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+}
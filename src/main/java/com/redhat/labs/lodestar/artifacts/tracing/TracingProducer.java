@@ -0,0 +1,26 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.quarkus.arc.Unremovable;
+
+public class TracingProducer {
+
+    /**
+     * Sends finished spans to the {@link LocalSpanExporter} when it is enabled.
+     * Quarkus adds every {@link SpanProcessor} bean to the tracer provider.
+     * 
+     * @param exporter
+     * @return
+     */
+    @Produces
+    @Singleton
+    @Unremovable
+    SpanProcessor localSpanProcessor(LocalSpanExporter exporter) {
+        return exporter.isEnabled() ? SimpleSpanProcessor.create(exporter) : SpanProcessor.composite();
+    }
+
+}
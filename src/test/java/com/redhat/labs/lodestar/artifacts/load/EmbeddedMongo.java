@@ -0,0 +1,49 @@
+package com.redhat.labs.lodestar.artifacts.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+/**
+ * Runs an embedded Mongo on the port chosen by {@link LoadTestProfile}.
+ */
+public class EmbeddedMongo implements QuarkusTestResourceLifecycleManager {
+
+    private MongodExecutable mongod;
+    private int port;
+
+    @Override
+    public void init(Map<String, String> initArgs) {
+        port = Integer.parseInt(initArgs.get("port"));
+    }
+
+    @Override
+    public Map<String, String> start() {
+
+        try {
+            mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder().version(Version.Main.V3_6)
+                    .net(new Net("localhost", port, Network.localhostIsIPv6())).build());
+            mongod.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return Map.of();
+    }
+
+    @Override
+    public void stop() {
+        if (null != mongod) {
+            mongod.stop();
+        }
+    }
+
+}
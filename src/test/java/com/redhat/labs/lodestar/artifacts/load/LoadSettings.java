@@ -0,0 +1,50 @@
+package com.redhat.labs.lodestar.artifacts.load;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Load test parameters, read from system properties so a run can be sized from
+ * the command line, e.g. {@code -Dload.engagements=200 -Dload.rate=50}.
+ */
+@Value
+@Builder
+public class LoadSettings {
+
+    int engagements;
+    int engagementPageSize;
+    int artifacts;
+    long gitlabLatencyMs;
+    long gitlabJitterMs;
+    int rate;
+    Duration duration;
+    int concurrency;
+    int putWeight;
+    int getWeight;
+    int refreshWeight;
+    int calibrationOps;
+    double maxErrorRate;
+    long maxP99Ms;
+
+    public static LoadSettings fromSystemProperties() {
+
+        String[] mix = System.getProperty("load.mix", "10:89:1").split(":");
+
+        return LoadSettings.builder().engagements(Integer.getInteger("load.engagements", 50))
+                .engagementPageSize(Integer.getInteger("load.engagement.page.size", 20))
+                .artifacts(Integer.getInteger("load.artifacts", 20))
+                .gitlabLatencyMs(Long.getLong("load.gitlab.latency.ms", 50))
+                .gitlabJitterMs(Long.getLong("load.gitlab.jitter.ms", 20))
+                .rate(Integer.getInteger("load.rate", 20))
+                .duration(Duration.ofSeconds(Long.getLong("load.duration.seconds", 30)))
+                .concurrency(Integer.getInteger("load.concurrency", 64))
+                .putWeight(Integer.parseInt(mix[0])).getWeight(Integer.parseInt(mix[1]))
+                .refreshWeight(Integer.parseInt(mix[2]))
+                .calibrationOps(Integer.getInteger("load.calibration.ops", 3))
+                .maxErrorRate(Double.parseDouble(System.getProperty("load.max.error.rate", "0.01")))
+                .maxP99Ms(Long.getLong("load.max.p99.ms", 0)).build();
+    }
+
+}
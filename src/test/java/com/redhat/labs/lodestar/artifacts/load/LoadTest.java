@@ -0,0 +1,267 @@
+package com.redhat.labs.lodestar.artifacts.load;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.labs.lodestar.artifacts.metrics.MongoCommandMetrics;
+import com.redhat.labs.lodestar.artifacts.metrics.RestClientTimingFilter;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * Drives mixed PUT, GET and refresh traffic at a fixed rate against generated
+ * engagements and reports throughput, latency percentiles and the GitLab,
+ * Engagement API and Mongo calls made by each operation. Latency is measured
+ * from when a request was scheduled, not sent, so a slow service cannot hide
+ * its queueing delay.
+ *
+ * Excluded from the default build. Run with {@code mvn -Pload-test test}. The
+ * report is written to {@code target/load-test-report.json}.
+ */
+@Tag("load")
+@QuarkusTest
+@TestProfile(LoadTestProfile.class)
+class LoadTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTest.class);
+
+    enum Operation {
+        PUT, GET, REFRESH
+    }
+
+    @TestHTTPResource
+    URL url;
+
+    LoadSettings settings = LoadSettings.fromSystemProperties();
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @Test
+    void testMixedLoad() throws Exception {
+
+        LOGGER.info("Load test {}", settings);
+
+        // populate the database from the stand-in
+        send(Operation.REFRESH);
+
+        Map<Operation, Map<String, Double>> callsPerOperation = calibrate();
+
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            // auto-resizing, so a latency past any fixed bound is recorded rather than thrown
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new AtomicLong());
+        }
+
+        Map<String, Long> callsBefore = callCounts();
+        long total = settings.getRate() * settings.getDuration().toSeconds();
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.getConcurrency());
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = next();
+            workers.submit(() -> {
+                boolean ok = send(operation);
+                latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+                if (!ok) {
+                    errors.get(operation).incrementAndGet();
+                }
+            });
+        }
+
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(5, TimeUnit.MINUTES), "load did not drain");
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> report = report(latencies, errors, callsPerOperation, callsBefore, elapsedSeconds);
+        Path file = Paths.get("target", "load-test-report.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, LoadTestData.toJson(report));
+        LOGGER.info("Load test report written to {}\n{}", file.toAbsolutePath(), LoadTestData.toJson(report));
+
+        long requests = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        long failed = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        assertTrue(failed <= requests * settings.getMaxErrorRate(), failed + " of " + requests + " requests failed");
+
+        if (settings.getMaxP99Ms() > 0) {
+            latencies.forEach((operation, histogram) -> assertTrue(
+                    histogram.getTotalCount() == 0
+                            || histogram.getValueAtPercentile(99) <= TimeUnit.MILLISECONDS.toMicros(settings.getMaxP99Ms()),
+                    operation + " p99 above " + settings.getMaxP99Ms() + " ms"));
+        }
+    }
+
+    /**
+     * Runs each operation alone a few times and returns the average number of
+     * calls it made to each downstream.
+     * 
+     * @return
+     */
+    Map<Operation, Map<String, Double>> calibrate() {
+
+        Map<Operation, Map<String, Double>> calls = new EnumMap<>(Operation.class);
+
+        for (Operation operation : Operation.values()) {
+
+            Map<String, Long> before = callCounts();
+            for (int i = 0; i < settings.getCalibrationOps(); i++) {
+                send(operation);
+            }
+            Map<String, Long> after = callCounts();
+
+            Map<String, Double> perOperation = new LinkedHashMap<>();
+            after.forEach((downstream, count) -> perOperation.put(downstream,
+                    (count - before.getOrDefault(downstream, 0L)) / (double) settings.getCalibrationOps()));
+            calls.put(operation, perOperation);
+        }
+
+        return calls;
+    }
+
+    Map<String, Object> report(Map<Operation, Histogram> latencies, Map<Operation, AtomicLong> errors,
+            Map<Operation, Map<String, Double>> callsPerOperation, Map<String, Long> callsBefore,
+            double elapsedSeconds) {
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", histogram.getTotalCount());
+            stats.put("errors", errors.get(operation).get());
+            stats.put("throughput_per_second", histogram.getTotalCount() / elapsedSeconds);
+            stats.put("p50_ms", histogram.getValueAtPercentile(50) / 1000.0);
+            stats.put("p99_ms", histogram.getValueAtPercentile(99) / 1000.0);
+            stats.put("p999_ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+            stats.put("max_ms", histogram.getMaxValue() / 1000.0);
+            stats.put("calls_per_operation", callsPerOperation.get(operation));
+            operations.put(operation.name().toLowerCase(), stats);
+        });
+
+        Map<String, Long> calls = new LinkedHashMap<>();
+        callCounts().forEach((downstream, count) -> calls.put(downstream, count - callsBefore.getOrDefault(downstream, 0L)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("elapsed_seconds", elapsedSeconds);
+        report.put("throughput_per_second",
+                latencies.values().stream().mapToLong(Histogram::getTotalCount).sum() / elapsedSeconds);
+        report.put("operations", operations);
+        report.put("downstream_calls", calls);
+        return report;
+    }
+
+    /**
+     * Returns the number of calls made so far to each REST client and to Mongo,
+     * from the service's own meters.
+     * 
+     * @return
+     */
+    Map<String, Long> callCounts() {
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("GitlabRestClient", 0L);
+        counts.put("EngagementApiRestClient", 0L);
+
+        for (Timer timer : Metrics.globalRegistry.find(RestClientTimingFilter.CLIENT_REQUESTS).timers()) {
+            counts.merge(timer.getId().getTag("client"), timer.count(), Long::sum);
+        }
+
+        counts.put("mongodb", Metrics.globalRegistry.find(MongoCommandMetrics.MONGO_COMMANDS).timers().stream()
+                .mapToLong(Timer::count).sum());
+        return counts;
+    }
+
+    Operation next() {
+
+        int roll = ThreadLocalRandom.current()
+                .nextInt(settings.getPutWeight() + settings.getGetWeight() + settings.getRefreshWeight());
+
+        if (roll < settings.getPutWeight()) {
+            return Operation.PUT;
+        }
+
+        return roll < settings.getPutWeight() + settings.getGetWeight() ? Operation.GET : Operation.REFRESH;
+    }
+
+    boolean send(Operation operation) {
+
+        int engagement = ThreadLocalRandom.current().nextInt(settings.getEngagements());
+        String engagementUuid = LoadTestData.engagementUuid(engagement);
+        HttpRequest.Builder request;
+
+        switch (operation) {
+        case PUT:
+            List<Artifact> artifacts = LoadTestData.artifacts(engagement, settings.getArtifacts());
+            artifacts.get(ThreadLocalRandom.current().nextInt(artifacts.size()))
+                    .setDescription("Updated " + System.nanoTime());
+            request = HttpRequest
+                    .newBuilder(uri("api/artifacts/engagement/uuid/" + engagementUuid + "/"
+                            + LoadTestData.region(engagement) + "?summary=true"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(LoadTestData.toJson(artifacts)));
+            break;
+        case REFRESH:
+            request = HttpRequest.newBuilder(uri("api/artifacts/refresh")).PUT(HttpRequest.BodyPublishers.noBody());
+            break;
+        default:
+            request = HttpRequest.newBuilder(uri("api/artifacts?engagementUuid=" + engagementUuid)).GET();
+        }
+
+        try {
+            HttpResponse<Void> response = client.send(request.timeout(Duration.ofMinutes(2)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            // a refresh overlapping one already running is refused with 409 by design
+            return response.statusCode() < 400
+                    || (operation == Operation.REFRESH && response.statusCode() == 409);
+        } catch (IOException e) {
+            LOGGER.debug("{} failed", operation, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    URI uri(String path) {
+        return URI.create(url.toString()).resolve("/" + path);
+    }
+
+}
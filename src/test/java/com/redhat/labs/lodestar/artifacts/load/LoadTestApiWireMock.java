@@ -0,0 +1,117 @@
+package com.redhat.labs.lodestar.artifacts.load;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.redhat.labs.lodestar.artifacts.model.gitlab.File;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+/**
+ * GitLab and Engagement API stand-in serving {@link LoadSettings#getEngagements()}
+ * generated engagements, with the configured latency added to every GitLab
+ * response.
+ */
+public class LoadTestApiWireMock implements QuarkusTestResourceLifecycleManager {
+
+    private WireMockServer wireMockServer;
+
+    @Override
+    public Map<String, String> start() {
+
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+
+        wireMockServer = new WireMockServer(options().dynamicPort().containerThreads(settings.getConcurrency() * 2)
+                .asynchronousResponseEnabled(true).disableRequestJournal());
+        wireMockServer.start();
+
+        List<Map<String, Object>> engagements = new ArrayList<>();
+
+        for (int e = 0; e < settings.getEngagements(); e++) {
+
+            String uuid = LoadTestData.engagementUuid(e);
+            long projectId = LoadTestData.projectId(e);
+            engagements.add(Map.of("uuid", uuid, "project_id", projectId));
+
+            wireMockServer.stubFor(get(urlEqualTo("/api/v2/engagements/" + uuid))
+                    .willReturn(json(LoadTestData.toJson(Map.of("uuid", uuid, "project_id", projectId)))));
+
+            String artifacts = LoadTestData.toJson(LoadTestData.artifacts(e, settings.getArtifacts()));
+            wireMockServer.stubFor(get(urlEqualTo(
+                    "/api/v4/projects/" + projectId + "/repository/files/engagement%2Fartifacts.json?ref=master"))
+                            .willReturn(gitlab(gitlabFile(artifacts), settings)));
+        }
+
+        int pageSize = settings.getEngagementPageSize();
+        for (int page = 1; (page - 1) * pageSize < engagements.size(); page++) {
+
+            int from = (page - 1) * pageSize;
+            ResponseDefinitionBuilder response = json(LoadTestData
+                    .toJson(engagements.subList(from, Math.min(from + pageSize, engagements.size()))));
+            if (from + pageSize < engagements.size()) {
+                response.withHeader("Link", "<" + wireMockServer.baseUrl() + "/api/v2/engagements?page=" + (page + 1)
+                        + "&perPage=" + pageSize + ">; rel=\"next\"");
+            }
+
+            wireMockServer.stubFor(get(urlPathEqualTo("/api/v2/engagements"))
+                    .withQueryParam("page", equalTo(String.valueOf(page))).willReturn(response));
+        }
+
+        wireMockServer.stubFor(get(urlMatching("/api/v4/projects/[0-9]+/repository/files/engagement.json\\?ref=master"))
+                .willReturn(gitlab(gitlabFile("{\"customer_name\": \"Load\", \"name\": \"Test\"}"), settings)));
+
+        wireMockServer.stubFor(post(urlMatching("/api/v4/projects/[0-9]+/repository/commits"))
+                .willReturn(gitlab(aResponse().withStatus(201).withHeader("Content-Type", "application/json"), settings)));
+
+        wireMockServer.stubFor(put(urlMatching("/api/v2/engagements/.+/artifacts/[0-9]+"))
+                .willReturn(aResponse().withStatus(200)));
+
+        Map<String, String> config = new HashMap<>();
+        config.put("gitlab.api/mp-rest/url", wireMockServer.baseUrl());
+        config.put("engagement.api/mp-rest/url", wireMockServer.baseUrl());
+        config.put("engagement.api.page.size", String.valueOf(pageSize));
+        return config;
+    }
+
+    @Override
+    public void stop() {
+        if (null != wireMockServer) {
+            wireMockServer.stop();
+        }
+    }
+
+    ResponseDefinitionBuilder json(String body) {
+        return aResponse().withHeader("Content-Type", "application/json").withBody(body);
+    }
+
+    ResponseDefinitionBuilder gitlabFile(String content) {
+        File file = File.builder().filePath("file.json").content(content).build();
+        file.encodeFileAttributes();
+        return json(LoadTestData.toJson(file));
+    }
+
+    ResponseDefinitionBuilder gitlab(ResponseDefinitionBuilder response, LoadSettings settings) {
+
+        if (settings.getGitlabJitterMs() > 0) {
+            return response.withUniformRandomDelay((int) settings.getGitlabLatencyMs(),
+                    (int) (settings.getGitlabLatencyMs() + settings.getGitlabJitterMs()));
+        }
+
+        return response.withFixedDelay((int) settings.getGitlabLatencyMs());
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.redhat.labs.lodestar.artifacts.load;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+
+import com.redhat.labs.lodestar.artifacts.config.JsonConfig;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
+
+/**
+ * Deterministic engagements and artifacts shared by the GitLab stand-in and
+ * the load driver.
+ */
+public final class LoadTestData {
+
+    static final String[] REGIONS = { "na", "emea", "apac", "latam" };
+    static final String[] TYPES = { "Demo", "Multimedia", "Retrospective", "Status Report", "Workshop" };
+    static final long FIRST_PROJECT_ID = 1000;
+
+    private static final Jsonb JSONB;
+
+    static {
+        JsonbConfig config = new JsonbConfig();
+        new JsonConfig().customize(config);
+        JSONB = JsonbBuilder.create(config);
+    }
+
+    private LoadTestData() {
+    }
+
+    static String engagementUuid(int engagement) {
+        return String.format("load-%05d", engagement);
+    }
+
+    static long projectId(int engagement) {
+        return FIRST_PROJECT_ID + engagement;
+    }
+
+    static String region(int engagement) {
+        return REGIONS[engagement % REGIONS.length];
+    }
+
+    static List<Artifact> artifacts(int engagement, int count) {
+
+        List<Artifact> artifacts = new ArrayList<>(count);
+        String engagementUuid = engagementUuid(engagement);
+
+        for (int i = 0; i < count; i++) {
+            Instant created = Timestamps.parse(String.format("2021-%02d-%02dT10:00:%02d", 1 + i % 12, 1 + engagement % 28, i % 60));
+            artifacts.add(Artifact.builder().uuid(String.format("%s-artifact-%05d", engagementUuid, i))
+                    .engagementUuid(engagementUuid).region(region(engagement)).type(TYPES[i % TYPES.length])
+                    .title("Artifact " + i + " of " + engagementUuid)
+                    .description("Load test artifact " + i + " with a description of typical length")
+                    .linkAddress("https://docs.example.com/" + engagementUuid + "/" + i).created(created)
+                    .modified(created).build());
+        }
+
+        return artifacts;
+    }
+
+    static String toJson(Object value) {
+        return JSONB.toJson(value);
+    }
+
+}
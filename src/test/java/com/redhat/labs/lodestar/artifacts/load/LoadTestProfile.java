@@ -0,0 +1,47 @@
+package com.redhat.labs.lodestar.artifacts.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+/**
+ * Points the service at an embedded Mongo and the generated API stand-in
+ * instead of the dev services database and the functional test stubs.
+ */
+public class LoadTestProfile implements QuarkusTestProfile {
+
+    static final int MONGO_PORT = freePort();
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of("quarkus.mongodb.devservices.enabled", "false",
+                "quarkus.mongodb.connection-string", "mongodb://localhost:" + MONGO_PORT,
+                "quarkus.log.category.\"com.redhat.labs\".level", "INFO",
+                "quarkus.log.category.\"com.redhat.labs\".min-level", "INFO",
+                "tracing.local.exporter", "none");
+    }
+
+    @Override
+    public List<TestResourceEntry> testResources() {
+        return List.of(new TestResourceEntry(EmbeddedMongo.class, Map.of("port", String.valueOf(MONGO_PORT))),
+                new TestResourceEntry(LoadTestApiWireMock.class));
+    }
+
+    @Override
+    public boolean disableGlobalTestResources() {
+        return true;
+    }
+
+    static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
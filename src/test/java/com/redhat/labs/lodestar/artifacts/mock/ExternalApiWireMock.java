@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Fault;
 
 import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
 
@@ -19,10 +20,17 @@ public class ExternalApiWireMock implements QuarkusTestResourceLifecycleManager
         wireMockServer = new WireMockServer();
         wireMockServer.start();
 
-        // get engagement projects
-        String body = ResourceLoader.load("engagement-projects.json");
+        // get engagement projects, two per page
+        String body = ResourceLoader.load("engagement-projects-page-1.json");
 
-        stubFor(get(urlEqualTo("/api/v2/engagements"))
+        stubFor(get(urlPathEqualTo("/api/v2/engagements")).withQueryParam("page", equalTo("1"))
+                .willReturn(aResponse().withHeader("Content-Type", "application/json")
+                        .withHeader("Link", "<" + wireMockServer.baseUrl() + "/api/v2/engagements?page=2&perPage=2>; rel=\"next\"")
+                        .withBody(body)));
+
+        body = ResourceLoader.load("engagement-projects-page-2.json");
+
+        stubFor(get(urlPathEqualTo("/api/v2/engagements")).withQueryParam("page", equalTo("2"))
                 .willReturn(aResponse().withHeader("Content-Type", "application/json").withBody(body)));
 
         body = ResourceLoader.load("engagement-project-1.json");
@@ -35,6 +43,10 @@ public class ExternalApiWireMock implements QuarkusTestResourceLifecycleManager
         stubFor(get(urlEqualTo("/api/v2/engagements/2222"))
                 .willReturn(aResponse().withHeader("Content-Type", "application/json").withBody(body)));
 
+        // the connection drops before any response
+        stubFor(get(urlEqualTo("/api/v2/engagements/9999"))
+                .willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+
 //        stubFor(get(urlEqualTo("/api/v1/engagements/projects/2222"))
 //                .willReturn(aResponse().withHeader("Content-Type", "application/json").withStatus(404)));
 
@@ -45,6 +57,9 @@ public class ExternalApiWireMock implements QuarkusTestResourceLifecycleManager
         stubFor(get(urlEqualTo("/api/v4/projects/1/repository/files/engagement%2Fartifacts.json?ref=master"))
                 .willReturn(aResponse().withHeader("Content-Type", "application/json").withBody(body)));
 
+        stubFor(head(urlEqualTo("/api/v4/projects/1/repository/files/engagement%2Fartifacts.json?ref=master"))
+                .willReturn(aResponse().withHeader("X-Gitlab-Blob-Id", "79f7bbd25901e8334750839545a9bd021f0e4c83")));
+
         body = ResourceLoader.load("project-91-artifacts-file.json");
 
         stubFor(get(urlEqualTo("/api/v4/projects/91/repository/files/engagement%2Fartifacts.json?ref=master"))
@@ -70,6 +85,7 @@ public class ExternalApiWireMock implements QuarkusTestResourceLifecycleManager
         Map<String, String> config = new HashMap<>();
         config.put("gitlab.api/mp-rest/url", wireMockServer.baseUrl());
         config.put("engagement.api/mp-rest/url", wireMockServer.baseUrl());
+        config.put("engagement.api.page.size", "2");
         return config;
 
     }
@@ -3,6 +3,7 @@ package com.redhat.labs.lodestar.artifacts.model;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Comparator;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -50,6 +51,23 @@ class ArtifactTest {
 		assertEquals(1, Artifact.pagedArtifactsByEngagementUuid("1111", 0, 1, Sort.by("uuid")).size());
 	}
 
+	@Test
+	void testFindAllByEngagementUuids() {
+		List<EngagementArtifacts> engagements = Artifact.findAllByEngagementUuids(List.of("1111", "xxx"), 1);
+		assertEquals(1, engagements.size());
+		assertEquals("1111", engagements.get(0).getEngagementUuid());
+		assertEquals(2, engagements.get(0).getCount());
+		assertEquals(1, engagements.get(0).getArtifacts().size());
+
+		// the limit keeps the most recently modified
+		Artifact latest = Artifact.findAllByEngagementUuid("1111").stream()
+				.min(Comparator.comparing(Artifact::getModified)).orElseThrow();
+		latest.setModified(Timestamps.now().plusSeconds(60));
+		latest.update();
+		engagements = Artifact.findAllByEngagementUuids(List.of("1111"), 1);
+		assertEquals(latest.getUuid(), engagements.get(0).getArtifacts().get(0).getUuid());
+	}
+
 	@Test
 	void testFindAllByEngagementUuid() {
 		assertEquals(2, Artifact.findAllByEngagementUuid("1111").size());
@@ -77,6 +95,23 @@ class ArtifactTest {
 
 	}
 
+	@Test
+	void testDeleteByEngagementUuidAndUuidNotIn() {
+
+		List<Artifact> artifacts = Artifact.findAllByEngagementUuid("1111");
+		Artifact saved = artifacts.get(0);
+		saved.setModified(Timestamps.now().plusSeconds(60));
+		saved.update();
+
+		// only the artifact modified before the cutoff is removed
+		List<Artifact> removed = Artifact.deleteByEngagementUuidAndUuidNotIn("1111", List.of(),
+				Timestamps.now().plusSeconds(1));
+		assertEquals(1, removed.size());
+		assertEquals(artifacts.get(1).getUuid(), removed.get(0).getUuid());
+		assertTrue(Artifact.findByUuid(saved.getUuid()).isPresent());
+
+	}
+
 	@Test
 	void testRemoveAllArtifacts() {
 		assertEquals(2, Artifact.removeAllArtifacts());
@@ -1,10 +1,13 @@
 package com.redhat.labs.lodestar.artifacts.resource;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
@@ -12,6 +15,9 @@ import java.util.List;
 
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
+import javax.ws.rs.ProcessingException;
+
+import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +25,7 @@ import org.junit.jupiter.api.Test;
 
 import com.redhat.labs.lodestar.artifacts.model.Artifact;
 import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
+import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
 import com.redhat.labs.lodestar.artifacts.service.ArtifactService;
 
 import io.quarkus.test.common.QuarkusTestResource;
@@ -36,6 +43,10 @@ class ArtifactResourceTest {
 	@Inject
 	Jsonb jsonb;
 
+	@Inject
+	@RestClient
+	EngagementApiRestClient engagementApi;
+
 	@BeforeEach
 	void setup() {
 		service.purge();
@@ -107,11 +118,46 @@ class ArtifactResourceTest {
 
 	}
 
+	@Test
+	void testSearchArtifacts() {
+
+		given().queryParam("search", "video").when().get("/api/artifacts/search").then().statusCode(200)
+				.header("x-total-artifacts", "1")
+				.body("size()", equalTo(1)).body("[0].title", equalTo("Video One"));
+
+		given().queryParam("search", "one").queryParam("type", "Demo").when().get("/api/artifacts/search").then()
+				.statusCode(200).body("size()", equalTo(1)).body("[0].title", equalTo("Demo One"));
+
+		given().queryParam("search", "video").queryParam("region", "emea").when().get("/api/artifacts/search").then()
+				.statusCode(200).body("size()", equalTo(0));
+
+	}
+
+	@Test
+	void testSearchArtifactsMissingSearch() {
+		given().when().get("/api/artifacts/search").then().statusCode(400);
+	}
+
 	@Test
 	void testGetEngagementCounts() {
 		given().when().get("/api/artifacts/engagements/count").then().statusCode(200).body("1111", equalTo(2));
 	}
 
+	@Test
+	void testGetArtifactsByEngagements() {
+
+		given().contentType(ContentType.JSON).body(List.of("1111", "xxx")).queryParam("limit", 1)
+				.post("/api/artifacts/engagements").then().statusCode(200)
+				.body("size()", equalTo(2))
+				.body("[0].engagement_uuid", equalTo("1111"))
+				.body("[0].count", equalTo(2))
+				.body("[0].artifacts.size()", equalTo(1))
+				.body("[1].engagement_uuid", equalTo("xxx"))
+				.body("[1].count", equalTo(0))
+				.body("[1].artifacts.size()", equalTo(0));
+
+	}
+
 	@Test
 	void testGetArtifactsByUnknownEngagement() {
 
@@ -210,6 +256,53 @@ class ArtifactResourceTest {
         assertTrue(newTypeFound && descFound);
 	}
 
+	@Test
+	void testModifyArtifactsReturnsAllEngagementArtifacts() {
+
+		GetListOptions options = new GetListOptions();
+		options.setEngagementUuid("1111");
+		List<Artifact> artifacts = service.getArtifacts(options);
+		Artifact modified = artifacts.get(0);
+		modified.setDescription("UPDATED");
+
+		String requestBody = jsonb.toJson(Arrays.asList(mockArtifact("1111"), modified));
+
+		given().contentType(ContentType.JSON).body(requestBody).put("/api/artifacts/engagement/uuid/1111/na").then()
+				.statusCode(200).body("size()", equalTo(2));
+
+	}
+
+	@Test
+	void testModifyArtifactsSummary() {
+
+		GetListOptions options = new GetListOptions();
+		options.setEngagementUuid("1111");
+		List<Artifact> artifacts = service.getArtifacts(options);
+		Artifact modified = artifacts.get(0);
+		modified.setDescription("UPDATED");
+		String deletedUuid = artifacts.get(1).getUuid();
+
+		String requestBody = jsonb.toJson(Arrays.asList(mockArtifact("1111"), modified));
+
+		given().contentType(ContentType.JSON).body(requestBody).queryParam("summary", true)
+				.put("/api/artifacts/engagement/uuid/1111/na").then().statusCode(200)
+				.body("created.size()", equalTo(1))
+				.body("updated.size()", equalTo(1))
+				.body("updated[0]", equalTo(modified.getUuid()))
+				.body("deleted.size()", equalTo(1))
+				.body("deleted[0]", equalTo(deletedUuid));
+
+	}
+
+	@Test
+	void testGetEngagementArtifacts() {
+
+		given().when().get("/api/artifacts/engagement/uuid/1111").then().statusCode(200).body("size()", equalTo(2));
+
+		given().when().get("/api/artifacts/engagement/uuid/xxx").then().statusCode(200).body("size()", equalTo(0));
+
+	}
+
 	@Test
 	void testGetAllTypes() {
 		given().when().get("/api/artifacts/types").then().statusCode(200)
@@ -228,6 +321,37 @@ class ArtifactResourceTest {
 				.body("[1].count", equalTo(1));
 	}
 	
+	@Test
+	void testServerTiming() {
+
+		given().when().get("/api/artifacts").then().statusCode(200)
+				.header("Server-Timing", containsString("mongo;dur="))
+				.header("Server-Timing", containsString("count;dur="))
+				.header("Server-Timing", containsString("serialization;dur="));
+
+		String requestBody = jsonb.toJson(Arrays.asList(mockArtifact("1111")));
+
+		given().contentType(ContentType.JSON).body(requestBody).queryParam("summary", true)
+				.put("/api/artifacts/engagement/uuid/1111/na").then().statusCode(200)
+				.header("Server-Timing", containsString("gitlab;dur="))
+				.header("Server-Timing", containsString("engagement-api;dur="));
+	}
+
+	@Test
+	void testMetrics() {
+		assertThrows(ProcessingException.class, () -> engagementApi.getEngagementByUuid("9999"));
+
+		given().when().get("/q/metrics").then().statusCode(200)
+				.body(containsString("artifacts_client_requests_seconds_count{client=\"GitlabRestClient\",method=\"getFile\",status=\"200\""))
+				.body(containsString("artifacts_client_requests_seconds_count{client=\"GitlabRestClient\",method=\"getFile\",status=\"404\""))
+				.body(containsString("artifacts_mongodb_commands_seconds_count{command=\"find\",status=\"success\""))
+				.body(containsString("artifacts_refresh_engagement_seconds_count "))
+				.body(not(containsString("artifacts_refresh_engagement_seconds_count{")))
+				.body(containsString("artifacts_client_requests_seconds_count{client=\"EngagementApiRestClient\",method=\"getEngagementByUuid\",status=\"IO_ERROR\""))
+				.body(containsString("artifacts_client_connections_opened_total{client=\"GitlabRestClient\""))
+				.body(containsString("httpcomponents_httpclient_pool_total_max{httpclient=\"GitlabRestClient\""));
+	}
+	
 	Artifact mockArtifact(String engagementUuid) {
 		return Artifact.builder().type("newType").title("New Artifact").linkAddress("http://new-artifact")
 				.description("a new artifact").engagementUuid(engagementUuid).build();
@@ -0,0 +1,76 @@
+package com.redhat.labs.lodestar.artifacts.resource;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.specification.RequestSpecification;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class DiagnosticsResourceTest {
+
+    @AfterEach
+    void tearDown() {
+        authorized().when().delete("/api/diagnostics/recording").then().statusCode(204);
+    }
+
+    @Test
+    void testRecording() throws IOException {
+
+        authorized().when().get("/api/diagnostics/recording/dump").then().statusCode(404);
+
+        authorized().when().post("/api/diagnostics/recording").then().statusCode(200).body("state",
+                equalTo("RUNNING"));
+        given().when().get("/api/artifacts").then().statusCode(200);
+
+        byte[] jfr = authorized().when().get("/api/diagnostics/recording/dump").then().statusCode(200).extract()
+                .asByteArray();
+        assertTrue(jfr.length > 0);
+
+        Path file = Files.createTempFile("diagnostics-test", ".jfr");
+        try {
+            Files.write(file, jfr);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertFalse(events.stream().anyMatch(e -> e.getEventType().getName().equals("jdk.InitialEnvironmentVariable")
+                    || e.getEventType().getName().equals("jdk.InitialSystemProperty")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        authorized().when().get("/api/diagnostics/recording").then().statusCode(200).body("state", equalTo("RUNNING"));
+    }
+
+    @Test
+    void testRecordingUnauthorized() {
+        given().when().get("/api/diagnostics/recording/dump").then().statusCode(401);
+        given().header("Authorization", "Bearer wrong").when().post("/api/diagnostics/recording").then()
+                .statusCode(401);
+    }
+
+    @Test
+    void testRecordingInvalidDuration() {
+        authorized().queryParam("duration", "ten minutes").when().post("/api/diagnostics/recording").then()
+                .statusCode(400);
+    }
+
+    RequestSpecification authorized() {
+        return given().header("Authorization", "Bearer test-token");
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.redhat.labs.lodestar.artifacts.rest.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import javax.inject.Inject;
+import javax.ws.rs.ClientErrorException;
+
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class GitlabRateLimitFilterTest {
+
+    @Inject
+    GitlabRateLimiter limiter;
+
+    @Inject
+    @RestClient
+    GitlabRestClient gitlabRestClient;
+
+    @AfterEach
+    void tearDown() {
+        limiter.init();
+    }
+
+    @Test
+    void testLocalTooManyRequests() {
+
+        // GitLab asks for a pause longer than calls may wait
+        limiter.onResponse(GitlabRateLimiter.TOO_MANY_REQUESTS, null, null, "600");
+
+        ClientErrorException ex = assertThrows(ClientErrorException.class,
+                () -> gitlabRestClient.getFile(1L, "engagement%2Fartifacts.json", "master"));
+        assertEquals(GitlabRateLimiter.TOO_MANY_REQUESTS, ex.getResponse().getStatus());
+        assertEquals("Waiting for the GitLab rate limit", ex.getMessage());
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.redhat.labs.lodestar.artifacts.rest.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GitlabRateLimiterTest {
+
+    private static final long EPOCH_MILLIS = 1_600_000_000_000L;
+
+    GitlabRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new GitlabRateLimiter();
+        limiter.enabled = true;
+        limiter.maxRate = 10;
+        limiter.burst = 2;
+        limiter.maxWait = Duration.ofSeconds(30);
+        limiter.maxConcurrency = 8;
+        limiter.init();
+    }
+
+    @Test
+    void testBurstThenPaced() {
+
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.reserve(now));
+        assertEquals(0, limiter.reserve(now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.reserve(now), 1000);
+    }
+
+    @Test
+    void testTooManyRequestsPausesAndHalvesConcurrency() {
+
+        long now = System.nanoTime();
+        limiter.onResponse(429, null, null, "5", now, EPOCH_MILLIS);
+
+        assertEquals(4, limiter.getConcurrencyLimit());
+        assertTrue(limiter.reserve(now) >= TimeUnit.SECONDS.toNanos(5));
+
+        limiter.onResponse(429, null, null, "60", now, EPOCH_MILLIS);
+        assertEquals(2, limiter.getConcurrencyLimit());
+        assertEquals(-1, limiter.reserve(now));
+    }
+
+    @Test
+    void testSuccessesGrowConcurrency() {
+
+        long now = System.nanoTime();
+        limiter.onResponse(429, null, null, "1", now, EPOCH_MILLIS);
+        assertEquals(4, limiter.getConcurrencyLimit());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.onResponse(200, null, null, null, now, EPOCH_MILLIS);
+        }
+        assertEquals(5, limiter.getConcurrencyLimit());
+    }
+
+    @Test
+    void testRateFollowsRemainingWindow() {
+
+        long now = System.nanoTime();
+        String reset = String.valueOf(EPOCH_MILLIS / 1000 + 20);
+
+        limiter.onResponse(200, "40", reset, null, now, EPOCH_MILLIS);
+        assertEquals(2, limiter.getRate(), 0.001);
+
+        limiter.onResponse(200, "1000", reset, null, now, EPOCH_MILLIS);
+        assertEquals(10, limiter.getRate(), 0.001);
+
+        limiter.onResponse(200, "0", reset, null, now, EPOCH_MILLIS);
+        assertTrue(limiter.reserve(now) >= TimeUnit.SECONDS.toNanos(20));
+    }
+
+    @Test
+    void testResumeAfterPause() {
+
+        long now = System.nanoTime();
+        limiter.onResponse(429, null, null, "60", now, EPOCH_MILLIS);
+
+        // longer than the maximum wait so calls are refused locally
+        assertEquals(-1, limiter.reserve(now));
+        assertTrue(limiter.untilResume(now) >= TimeUnit.SECONDS.toNanos(60));
+        assertEquals(0, limiter.untilResume(now + TimeUnit.SECONDS.toNanos(61)));
+        assertTrue(limiter.reserve(now + TimeUnit.SECONDS.toNanos(61)) >= 0);
+    }
+
+}
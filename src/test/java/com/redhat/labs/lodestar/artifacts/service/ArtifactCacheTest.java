@@ -0,0 +1,144 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactCount;
+import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
+import com.redhat.labs.lodestar.artifacts.model.GetOptions;
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
+
+class ArtifactCacheTest {
+
+    ArtifactCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ArtifactCache();
+        cache.enabled = true;
+        cache.load(List.of(
+                artifact("a1", "1111", "na", "Demo", "Demo One", "2021-01-01T00:00:01"),
+                artifact("a2", "1111", "na", "Multimedia", "Video One", "2021-01-01T00:00:03"),
+                artifact("a3", "2222", "emea", "Demo", "Demo Two", "2021-01-01T00:00:02")));
+    }
+
+    @Test
+    void testInactiveUntilLoaded() {
+        ArtifactCache empty = new ArtifactCache();
+        empty.enabled = true;
+        assertFalse(empty.isActive());
+        assertTrue(cache.isActive());
+    }
+
+    @Test
+    void testGetArtifactsSortedByModified() {
+
+        GetListOptions options = new GetListOptions();
+        options.setSort("modified|DESC");
+
+        List<Artifact> artifacts = cache.getArtifacts(options);
+
+        assertEquals(3, artifacts.size());
+        assertEquals("a2", artifacts.get(0).getUuid());
+        assertEquals("a3", artifacts.get(1).getUuid());
+        assertEquals("a1", artifacts.get(2).getUuid());
+    }
+
+    @Test
+    void testGetArtifactsSortedByTitle() {
+
+        GetListOptions options = new GetListOptions();
+        options.setSort("title|DESC");
+
+        List<Artifact> artifacts = cache.getArtifacts(options);
+
+        assertEquals("Video One", artifacts.get(0).getTitle());
+        assertEquals("Demo One", artifacts.get(2).getTitle());
+    }
+
+    @Test
+    void testGetArtifactsPaging() {
+
+        GetListOptions options = new GetListOptions();
+        options.setPageSize(2);
+        options.setPage(1);
+
+        assertEquals(1, cache.getArtifacts(options).size());
+
+        options.setPage(2);
+        assertEquals(0, cache.getArtifacts(options).size());
+    }
+
+    @Test
+    void testGetArtifactsByEngagement() {
+
+        GetListOptions options = new GetListOptions();
+        options.setEngagementUuid("1111");
+
+        List<Artifact> artifacts = cache.getArtifacts(options);
+
+        assertEquals(2, artifacts.size());
+        assertEquals("a2", artifacts.get(0).getUuid());
+    }
+
+    @Test
+    void testGetArtifactsByRegionAndType() {
+
+        GetListOptions options = new GetListOptions();
+        options.setRegion(List.of("na", "emea"));
+        options.setType("Demo");
+
+        assertEquals(2, cache.getArtifacts(options).size());
+
+        options.setRegion(Collections.singletonList("emea"));
+        assertEquals(1, cache.getArtifacts(options).size());
+    }
+
+    @Test
+    void testCountArtifacts() {
+        assertEquals(3, cache.countArtifacts(new GetOptions()).getCount());
+        assertEquals(2, cache.countArtifacts(new GetOptions("1111", null, null)).getCount());
+        assertEquals(2, cache.countArtifacts(new GetOptions(null, "Demo", null)).getCount());
+        assertEquals(1, cache.countArtifacts(new GetOptions(null, null, List.of("emea"))).getCount());
+    }
+
+    @Test
+    void testCountArtifactsForEachRegionAndType() {
+
+        List<ArtifactCount> counts = cache.countArtifactsForEachRegionAndType(Collections.emptyList());
+
+        assertEquals(2, counts.size());
+        assertEquals("Demo", counts.get(0).getType());
+        assertEquals(2, counts.get(0).getCount());
+        assertEquals("Multimedia", counts.get(1).getType());
+
+        counts = cache.countArtifactsForEachRegionAndType(List.of("emea"));
+        assertEquals(1, counts.size());
+    }
+
+    @Test
+    void testCountArtifactsForEachEngagement() {
+
+        Map<String, Long> counts = cache.countArtifactsForEachEngagement();
+
+        assertEquals(2, counts.get("1111"));
+        assertEquals(1, counts.get("2222"));
+    }
+
+    Artifact artifact(String uuid, String engagementUuid, String region, String type, String title, String modified) {
+        return Artifact.builder().id(new ObjectId()).uuid(uuid).engagementUuid(engagementUuid).region(region)
+                .type(type).title(title).description(title).linkAddress("http://" + uuid).created(Timestamps.parse(modified))
+                .modified(Timestamps.parse(modified)).build();
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChange;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChanges;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class ArtifactChangeLogTest {
+
+    @Inject
+    ArtifactChangeLog changeLog;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @BeforeEach
+    void setUp() {
+        artifactService.purge();
+    }
+
+    @Test
+    void testChangesSinceToken() {
+
+        // given
+        String start = changeLog.changesSince(null, 0).getNext();
+        artifactService.refresh();
+
+        // when
+        ArtifactChanges refreshed = changeLog.changesSince(start, 0);
+
+        // then
+        List<Artifact> artifacts = Artifact.findAllByEngagementUuid("1111");
+        assertEquals(artifacts.stream().map(Artifact::getUuid).collect(Collectors.toSet()),
+                refreshed.getUpserts().stream().map(Artifact::getUuid).collect(Collectors.toSet()));
+        assertTrue(refreshed.getDeletes().isEmpty());
+        assertFalse(refreshed.isMore());
+
+        // when
+        artifactService.updateArtifacts("1111", artifacts.get(0).getRegion(), List.of(artifacts.get(0)),
+                Optional.empty(), Optional.empty());
+        ArtifactChanges updated = changeLog.changesSince(refreshed.getNext(), 0);
+
+        // then
+        assertEquals(Set.of(artifacts.get(1).getUuid()),
+                updated.getDeletes().stream().map(ArtifactChange::getUuid).collect(Collectors.toSet()));
+        assertEquals("1111", updated.getDeletes().get(0).getEngagementUuid());
+        assertTrue(updated.getUpserts().isEmpty());
+        assertTrue(changeLog.changesSince(updated.getNext(), 0).getDeletes().isEmpty());
+
+    }
+
+    @Test
+    void testUnchangedReloadNotRecorded() {
+
+        // given
+        artifactService.refresh();
+        String start = changeLog.changesSince(null, 0).getNext();
+
+        // when
+        artifactService.refresh();
+        ArtifactChanges reloaded = changeLog.changesSince(start, 0);
+
+        // then
+        assertTrue(reloaded.getUpserts().isEmpty());
+        assertTrue(reloaded.getDeletes().isEmpty());
+        assertEquals(start, reloaded.getNext());
+
+    }
+
+    @Test
+    void testPagedChanges() {
+
+        // given
+        String start = changeLog.changesSince(null, 0).getNext();
+        artifactService.refresh();
+
+        // when
+        ArtifactChanges first = changeLog.changesSince(start, 1);
+        ArtifactChanges rest = changeLog.changesSince(first.getNext(), 0);
+
+        // then
+        assertEquals(1, first.getUpserts().size());
+        assertTrue(first.isMore());
+        assertFalse(rest.getUpserts().isEmpty());
+        assertFalse(rest.getUpserts().contains(first.getUpserts().get(0)));
+
+    }
+
+    @Test
+    void testTokenBeforePurgeGone() {
+
+        // given
+        String start = changeLog.changesSince(null, 0).getNext();
+        artifactService.refresh();
+
+        // when
+        artifactService.purge();
+
+        // then
+        WebApplicationException gone = assertThrows(WebApplicationException.class,
+                () -> changeLog.changesSince(start, 0));
+        assertEquals(410, gone.getResponse().getStatus());
+
+        WebApplicationException invalid = assertThrows(WebApplicationException.class,
+                () -> changeLog.changesSince("abc", 0));
+        assertEquals(400, invalid.getResponse().getStatus());
+
+    }
+
+}
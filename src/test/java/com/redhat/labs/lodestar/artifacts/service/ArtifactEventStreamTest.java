@@ -0,0 +1,246 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import javax.inject.Inject;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import javax.ws.rs.sse.SseEventSource;
+
+import org.jboss.resteasy.plugins.providers.sse.SseImpl;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.ArtifactChange;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class ArtifactEventStreamTest {
+
+    private final Sse sse = new SseImpl();
+
+    @Inject
+    ArtifactEventStream events;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @TestHTTPResource("/api/artifacts/events")
+    URL url;
+
+    @Test
+    void testEventsStreamed() throws Exception {
+
+        // given
+        artifactService.purge();
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        Client client = ClientBuilder.newClient();
+
+        try (SseEventSource source = SseEventSource
+                .target(client.target(url.toString()).queryParam("engagementUuid", "1111")).build()) {
+
+            source.register(e -> received.add(e.getName() + " " + e.readData()));
+            source.open();
+            await(() -> events.subscriberCount() > 0);
+
+            // when
+            artifactService.refresh();
+
+            // then
+            await(() -> received.stream().filter(e -> e.startsWith("upsert")).count() == 2);
+            List<Artifact> artifacts = Artifact.findAllByEngagementUuid("1111");
+            artifacts.forEach(a -> assertTrue(received.stream().anyMatch(e -> e.contains(a.getUuid()))));
+
+            // when nothing has changed
+            received.clear();
+            artifactService.refresh();
+            events.sendChanges();
+            // anything sent would arrive well within this
+            Thread.sleep(500);
+
+            // then
+            assertTrue(received.isEmpty());
+        } finally {
+            client.close();
+        }
+
+    }
+
+    @Test
+    void testSlowSubscriberResynced() {
+
+        // given
+        StalledSink sink = new StalledSink();
+        ArtifactEventStream.Subscriber subscriber = new ArtifactEventStream.Subscriber(sink, 2, null, null, Set.of(),
+                Runnable::run);
+        OutboundSseEvent resync = sse.newEventBuilder().name(ArtifactEventStream.RESYNC).data("1").build();
+
+        // when
+        boolean overflow = false;
+        for (int i = 0; i < 4; i++) {
+            overflow = subscriber.offer(event(i), () -> resync);
+        }
+
+        // then first is in flight, two fill the buffer and the fourth overflows it
+        assertTrue(overflow);
+        assertEquals(1, sink.sent.size());
+        assertEquals(2, subscriber.buffered());
+
+        // when the consumer catches up
+        sink.pending.complete(null);
+
+        // then the resync is sent before the latest event
+        assertEquals(ArtifactEventStream.RESYNC, sink.sent.get(1).getName());
+        assertEquals("3", sink.sent.get(2).getId());
+
+    }
+
+    @Test
+    void testBlockedSubscriberHoldsUpNobody() throws Exception {
+
+        // given a client whose writes block, as RESTEasy's do until the socket takes them
+        ExecutorService senders = Executors.newCachedThreadPool();
+        BlockingSink blocked = new BlockingSink();
+        BlockingSink open = new BlockingSink();
+        open.release.countDown();
+        ArtifactEventStream.Subscriber slow = new ArtifactEventStream.Subscriber(blocked, 2, null, null, Set.of(),
+                senders);
+        ArtifactEventStream.Subscriber fast = new ArtifactEventStream.Subscriber(open, 16, null, null, Set.of(),
+                senders);
+        OutboundSseEvent resync = sse.newEventBuilder().name(ArtifactEventStream.RESYNC).data("1").build();
+
+        try {
+            // when changes are fanned out
+            boolean overflow = false;
+            for (int i = 0; i < 10; i++) {
+                overflow |= slow.offer(event(i), () -> resync);
+                fast.offer(event(i), () -> resync);
+            }
+
+            // then the others keep receiving and the blocked one is resynced once it catches up
+            await(() -> open.sent.size() == 10);
+            assertTrue(overflow);
+            blocked.release.countDown();
+            await(() -> blocked.sent.stream().anyMatch(e -> ArtifactEventStream.RESYNC.equals(e.getName())));
+            await(() -> "9".equals(blocked.sent.get(blocked.sent.size() - 1).getId()));
+        } finally {
+            blocked.release.countDown();
+            senders.shutdownNow();
+        }
+
+    }
+
+    @Test
+    void testSubscriberFilters() {
+
+        ArtifactEventStream.Subscriber subscriber = new ArtifactEventStream.Subscriber(new StalledSink(), 2, "1111",
+                "Demo", Set.of("na", "emea"), Runnable::run);
+        subscriber.skipThrough = 5;
+
+        assertTrue(subscriber.matches(change(6, "1111", "Demo", "na")));
+        assertFalse(subscriber.matches(change(5, "1111", "Demo", "na")));
+        assertFalse(subscriber.matches(change(6, "2222", "Demo", "na")));
+        assertFalse(subscriber.matches(change(6, "1111", "Video", "na")));
+        assertFalse(subscriber.matches(change(6, "1111", "Demo", "apac")));
+
+    }
+
+    OutboundSseEvent event(int id) {
+        return sse.newEventBuilder().id(String.valueOf(id)).name("upsert").data("{}").build();
+    }
+
+    ArtifactChange change(long sequence, String engagementUuid, String type, String region) {
+        return ArtifactChange.builder().sequence(sequence).operation(ArtifactChange.UPSERT).uuid("a")
+                .engagementUuid(engagementUuid).artifactType(type).region(region).build();
+    }
+
+    void await(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < until) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * Writes synchronously, blocking every send until released.
+     */
+    static class BlockingSink implements SseEventSink {
+
+        final List<OutboundSseEvent> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            }
+            sent.add(event);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    /**
+     * Completes the first send only when told to, as a slow client would, and
+     * every later send straight away.
+     */
+    static class StalledSink implements SseEventSink {
+
+        final List<OutboundSseEvent> sent = new ArrayList<>();
+        final CompletableFuture<Object> pending = new CompletableFuture<>();
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            sent.add(event);
+            return sent.size() == 1 ? pending : CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
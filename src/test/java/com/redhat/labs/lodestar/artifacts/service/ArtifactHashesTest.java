@@ -0,0 +1,45 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+
+class ArtifactHashesTest {
+
+    private final Jsonb jsonb = JsonbBuilder.create();
+
+    @Test
+    void testGitBlobId() {
+        // git hash-object of a file containing "hello\n"
+        assertEquals("ce013625030ba8dba906f756967f9e9ca394464a", ArtifactHashes.gitBlobId("hello\n"));
+    }
+
+    @Test
+    void testContentHashIgnoresOrder() {
+
+        Artifact first = Artifact.builder().uuid("a").title("First").build();
+        Artifact second = Artifact.builder().uuid("b").title("Second").build();
+
+        assertEquals(ArtifactHashes.contentHash(jsonb, List.of(first, second)),
+                ArtifactHashes.contentHash(jsonb, List.of(second, first)));
+    }
+
+    @Test
+    void testContentHashChangesWithContent() {
+
+        Artifact artifact = Artifact.builder().uuid("a").title("First").build();
+        String before = ArtifactHashes.contentHash(jsonb, List.of(artifact));
+        artifact.setTitle("Changed");
+
+        assertNotEquals(before, ArtifactHashes.contentHash(jsonb, List.of(artifact)));
+    }
+
+}
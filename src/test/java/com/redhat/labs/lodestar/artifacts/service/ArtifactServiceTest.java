@@ -1,29 +1,50 @@
 package com.redhat.labs.lodestar.artifacts.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
 import javax.ws.rs.WebApplicationException;
 
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.MongoCursor;
 import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
 import com.redhat.labs.lodestar.artifacts.mock.ResourceLoader;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.redhat.labs.lodestar.artifacts.model.Artifact;
 import com.redhat.labs.lodestar.artifacts.model.ArtifactCount;
+import com.redhat.labs.lodestar.artifacts.model.EngagementBlob;
 import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
 import com.redhat.labs.lodestar.artifacts.model.GetOptions;
+import com.redhat.labs.lodestar.artifacts.model.PendingCommit;
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 
@@ -37,6 +58,12 @@ class ArtifactServiceTest {
     @Inject
     Jsonb jsonb;
 
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "artifacts.file")
+    String artifactsFile;
+
     @BeforeEach
     void setUp() {
         artifactService.purge();
@@ -308,4 +335,201 @@ class ArtifactServiceTest {
 
     }
 
+    @Test
+    void testModifiedRange() {
+
+        // given
+        List<Artifact> artifacts = Artifact.findAllByEngagementUuid("1111");
+        artifacts.get(0).setModified(Timestamps.parse("2020-06-01T00:00:00"));
+        artifacts.get(0).update();
+        artifacts.get(1).setModified(Timestamps.parse("2022-06-01T00:00:00.5"));
+        artifacts.get(1).update();
+
+        GetListOptions since = new GetListOptions();
+        since.setEngagementUuid("1111");
+        since.setModifiedSince("2021-01-01");
+
+        GetListOptions before = new GetListOptions();
+        before.setType(artifacts.get(0).getType());
+        before.setModifiedBefore("2021-01-01T00:00:00Z");
+
+        // when
+        List<Artifact> updatedSince = artifactService.getArtifacts(since);
+        List<Artifact> updatedBefore = artifactService.getArtifacts(before);
+
+        // then
+        assertEquals(1, updatedSince.size());
+        assertEquals(artifacts.get(1).getUuid(), updatedSince.get(0).getUuid());
+        assertEquals(Timestamps.parse("2022-06-01T00:00:00.500"), updatedSince.get(0).getModified());
+        assertEquals(1, artifactService.countArtifacts(since).getCount());
+        assertEquals(1, updatedBefore.size());
+        assertEquals(artifacts.get(0).getUuid(), updatedBefore.get(0).getUuid());
+
+        GetOptions invalid = new GetOptions();
+        invalid.setModifiedSince("yesterday");
+        WebApplicationException ex = assertThrows(WebApplicationException.class,
+                () -> artifactService.countArtifacts(invalid));
+        assertEquals(400, ex.getResponse().getStatus());
+
+    }
+
+    @Test
+    void testQueuedCommitRetried() {
+
+        // given
+        artifactService.queueArtifactsFile("1111", "bot@bot.com", "bot", Optional.of("queued"));
+        artifactService.queueArtifactsFile("1111", "bot@bot.com", "bot", Optional.of("queued"));
+
+        List<PendingCommit> pending = PendingCommit.findAllPending();
+        assertEquals(1, pending.size());
+        assertEquals(2, pending.get(0).getAttempts());
+
+        // when
+        artifactService.retryPendingCommits();
+
+        // then
+        assertEquals(0, PendingCommit.count());
+
+    }
+
+    @Test
+    void testUnchangedArtifactsFileLeftOutOfCommit() {
+
+        // given
+        artifactService.updateArtifactsFile("1111", "bot@bot.com", "bot", Optional.of("first"));
+        double skipped = skippedActions();
+
+        // when
+        artifactService.updateArtifactsFile("1111", "bot@bot.com", "bot", Optional.of("same again"));
+
+        // then
+        assertEquals(skipped + 1, skippedActions());
+
+    }
+
+    @Test
+    void testCommitPreparationFailureRethrown() {
+
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new WebApplicationException(404));
+
+        WebApplicationException ex = assertThrows(WebApplicationException.class,
+                () -> artifactService.awaitCommitPreparation("1111", new CommitPreparation(Runnable::run),
+                        CompletableFuture.completedFuture("ok"), failed));
+        assertEquals(404, ex.getResponse().getStatus());
+
+    }
+
+    @Test
+    void testAbandonedCommitPreparationSkipsQueuedSteps() throws InterruptedException {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+
+        try {
+            CommitPreparation preparation = new CommitPreparation(executor);
+            CompletableFuture<String> running = preparation.supply(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "done";
+            });
+            CompletableFuture<Boolean> queued = preparation.supply(() -> queuedRan.getAndSet(true));
+
+            preparation.abandon();
+            release.countDown();
+
+            // the running step finishes, the queued one never starts
+            assertEquals("done", running.join());
+            CompletionException ex = assertThrows(CompletionException.class, queued::join);
+            assertTrue(ex.getCause() instanceof CancellationException);
+            assertFalse(queuedRan.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+    @Test
+    void testStreamFailureLeavesArrayOpen() {
+
+        // a cursor whose database fails after the first artifact
+        Artifact first = Artifact.findAllByEngagementUuid("1111").get(0);
+        AtomicBoolean closed = new AtomicBoolean();
+        MongoCursor<Artifact> failing = new MongoCursor<>() {
+            int read;
+
+            @Override
+            public boolean hasNext() {
+                if (read > 0) {
+                    throw new MongoException("connection lost");
+                }
+                return true;
+            }
+
+            @Override
+            public Artifact next() {
+                read++;
+                return first;
+            }
+
+            @Override
+            public Artifact tryNext() {
+                return next();
+            }
+
+            @Override
+            public ServerCursor getServerCursor() {
+                return null;
+            }
+
+            @Override
+            public ServerAddress getServerAddress() {
+                return null;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // the failure aborts the response instead of ending it as valid json
+        assertThrows(MongoException.class, () -> artifactService.writeArtifacts(failing, output));
+        assertFalse(output.toString(StandardCharsets.UTF_8).endsWith("]"));
+        assertTrue(closed.get());
+
+    }
+
+    private double skippedActions() {
+        Counter counter = registry.find("artifacts.commits.actions.skipped").tag("file", artifactsFile).counter();
+        return null == counter ? 0 : counter.count();
+    }
+
+    @Test
+    void testReconcileRepairsMongoDrift() {
+
+        // given
+        List<Artifact> artifacts = Artifact.findAllByEngagementUuid("1111");
+        assertEquals(2, artifacts.size());
+        Artifact.deleteByUuid(artifacts.get(0).getUuid());
+        Artifact.builder().uuid("not-in-git").engagementUuid("1111").title("Stray").type("Demo").region("na")
+                .build().persist();
+
+        // when
+        artifactService.reconcile();
+
+        // then
+        List<Artifact> reconciled = Artifact.findAllByEngagementUuid("1111");
+        assertEquals(2, reconciled.size());
+        assertTrue(reconciled.stream().anyMatch(a -> a.getUuid().equals(artifacts.get(0).getUuid())));
+        assertTrue(reconciled.stream().noneMatch(a -> a.getUuid().equals("not-in-git")));
+        assertEquals(artifactService.contentHashOf("1111"),
+                EngagementBlob.findBlobsByEngagement().get("1111").getContentHash());
+
+    }
+
 }
@@ -0,0 +1,56 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.EngagementBlob;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class ArtifactSnapshotsTest {
+
+    @Inject
+    ArtifactSnapshots snapshots;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @BeforeEach
+    void setUp() {
+        artifactService.purge();
+        artifactService.refresh();
+    }
+
+    @Test
+    void testWriteAndRestore() {
+
+        assertEquals(2, snapshots.write());
+
+        artifactService.purge();
+        assertEquals(0, Artifact.count());
+
+        assertEquals(2, snapshots.restore(snapshots.path()));
+        assertEquals(2, Artifact.count());
+        assertEquals("79f7bbd25901e8334750839545a9bd021f0e4c83", EngagementBlob.findBlobIds().get("1111"));
+    }
+
+    @Test
+    void testReconcileAfterRestore() {
+
+        snapshots.write();
+        artifactService.purge();
+        snapshots.restore(snapshots.path());
+
+        assertEquals(2, artifactService.reconcile());
+    }
+
+}
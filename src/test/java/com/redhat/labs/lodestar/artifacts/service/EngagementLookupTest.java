@@ -0,0 +1,62 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.ws.rs.ServerErrorException;
+
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Engagement;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class EngagementLookupTest {
+
+    @Inject
+    EngagementLookup engagementLookup;
+
+    @Test
+    void testEngagementPagesFollowLinks() {
+
+        List<List<Engagement>> pages = new ArrayList<>();
+        engagementLookup.forEachEngagementPage(pages::add);
+
+        assertEquals(2, pages.size());
+        assertEquals(2, pages.get(0).size());
+        assertEquals("1111", pages.get(0).get(0).getUuid());
+        assertEquals("9292", pages.get(1).get(1).getUuid());
+    }
+
+    @Test
+    void testConsumerFailurePassedOn() {
+
+        List<List<Engagement>> pages = new ArrayList<>();
+
+        // a GitLab outage during the consumer's reload is not an Engagement API outage
+        assertThrows(ServerErrorException.class, () -> engagementLookup.forEachEngagementPage(page -> {
+            pages.add(page);
+            throw new ServerErrorException(503);
+        }));
+        assertEquals(1, pages.size());
+    }
+
+    @Test
+    void testGetAllEngagements() {
+
+        List<Long> projectIds = engagementLookup.getAllEngagements().stream().map(Engagement::getProjectId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(1L, 90L, 91L, 92L), projectIds);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Engagement;
+import com.redhat.labs.lodestar.artifacts.model.EngagementSyncState;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class EngagementSyncRetrierTest {
+
+    @Inject
+    EngagementSyncRetrier retrier;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @BeforeEach
+    void setUp() {
+        EngagementSyncState.deleteAll();
+        artifactService.purge();
+        artifactService.refresh();
+    }
+
+    @Test
+    void testFailuresRecorded() {
+
+        Map<String, EngagementSyncState> unhealthy = artifactService.getUnhealthyEngagements().stream()
+                .collect(Collectors.toMap(EngagementSyncState::getEngagementUuid, s -> s));
+
+        // 9191 has an empty artifacts file and 9292 has none
+        assertEquals(2, unhealthy.size());
+        assertEquals("Artifacts file is empty", unhealthy.get("9191").getLastError());
+        assertEquals("Artifacts file not found", unhealthy.get("9292").getLastError());
+        assertEquals(EngagementSyncState.FAILED, unhealthy.get("9191").getStatus());
+        assertTrue(unhealthy.get("9191").getNextRetry().after(new Date()));
+        // a missing file is not retried
+        assertEquals(EngagementSyncState.MISSING, unhealthy.get("9292").getStatus());
+        assertEquals(1, unhealthy.get("9292").getAttempts());
+        assertNull(unhealthy.get("9292").getNextRetry());
+        assertTrue(EngagementSyncState.isHealthy("1111"));
+    }
+
+    @Test
+    void testRetryDue() {
+
+        Engagement engagement = new Engagement();
+        engagement.setUuid("1111");
+        engagement.setProjectId(1);
+        retrier.recordFailure(engagement, "Service Unavailable");
+        assertFalse(EngagementSyncState.isHealthy("1111"));
+
+        Date past = new Date(System.currentTimeMillis() - 1000);
+        EngagementSyncState.scheduleRetry("1111", past);
+        EngagementSyncState.scheduleRetry("9191", past);
+        EngagementSyncState.scheduleRetry("9292", past);
+
+        assertEquals(1, retrier.retryDue());
+
+        assertTrue(EngagementSyncState.isHealthy("1111"));
+        Map<String, EngagementSyncState> unhealthy = artifactService.getUnhealthyEngagements().stream()
+                .collect(Collectors.toMap(EngagementSyncState::getEngagementUuid, s -> s));
+        assertEquals(2, unhealthy.size());
+        assertEquals(2, unhealthy.get("9191").getAttempts());
+        assertEquals(1, unhealthy.get("9292").getAttempts());
+    }
+
+    @Test
+    void testBackoff() {
+
+        assertEquals(Duration.ofSeconds(15), retrier.backoff(1, 0));
+        assertEquals(Duration.ofSeconds(30), retrier.backoff(1, 1));
+        assertEquals(Duration.ofSeconds(90), retrier.backoff(3, 0.5));
+        assertEquals(Duration.ofMinutes(30), retrier.backoff(20, 0));
+        assertEquals(Duration.ofHours(1), retrier.backoff(100, 1));
+    }
+
+}
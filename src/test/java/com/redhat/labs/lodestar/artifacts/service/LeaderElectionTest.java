@@ -0,0 +1,123 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Lease;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class LeaderElectionTest {
+
+    // unique per run so leases left by an earlier run do not interfere
+    private static final String RUN = UUID.randomUUID().toString();
+    private static final String ONE_HOLDER = "one-holder-" + RUN;
+    private static final String TAKEOVER = "takeover-" + RUN;
+    private static final String EXPIRY = "expiry-" + RUN;
+    private static final String FENCE = "fence-" + RUN;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @Test
+    void testLeaseHeldByOneHolder() {
+
+        Optional<Lease> first = Lease.tryAcquire(ONE_HOLDER, "pod-a", Duration.ofMinutes(1));
+        assertTrue(first.isPresent());
+        assertTrue(Lease.tryAcquire(ONE_HOLDER, "pod-b", Duration.ofMinutes(1)).isEmpty());
+
+        Optional<Lease> renewed = Lease.tryAcquire(ONE_HOLDER, "pod-a", Duration.ofMinutes(1));
+        assertTrue(renewed.isPresent());
+        assertEquals(first.get().getToken(), renewed.get().getToken());
+        assertTrue(Lease.isHeld(ONE_HOLDER, "pod-a", first.get().getToken()));
+    }
+
+    @Test
+    void testTakeoverAfterRelease() {
+
+        long token = Lease.tryAcquire(TAKEOVER, "pod-a", Duration.ofMinutes(1)).get().getToken();
+        Lease.release(TAKEOVER, "pod-a");
+
+        Optional<Lease> takeover = Lease.tryAcquire(TAKEOVER, "pod-b", Duration.ofMinutes(1));
+        assertTrue(takeover.isPresent());
+        assertTrue(takeover.get().getToken() > token);
+        assertFalse(Lease.isHeld(TAKEOVER, "pod-a", token));
+    }
+
+    @Test
+    void testTakeoverAfterExpiry() {
+
+        long token = Lease.tryAcquire(EXPIRY, "pod-a", Duration.ZERO).get().getToken();
+
+        Optional<Lease> takeover = Lease.tryAcquire(EXPIRY, "pod-b", Duration.ofMinutes(1));
+        assertTrue(takeover.isPresent());
+        assertEquals(token + 1, takeover.get().getToken());
+    }
+
+    @Test
+    void testRunAsLeader() {
+
+        assertEquals(Optional.of(1), leaderElection.runAsLeader("test-run", () -> {
+            assertTrue(leaderElection.currentToken("test-run").isPresent());
+            // reentrant on the same thread
+            return leaderElection.runAsLeader("test-run", () -> 1).orElse(0);
+        }));
+
+        // released once the task ends
+        assertTrue(leaderElection.currentToken("test-run").isEmpty());
+    }
+
+    @Test
+    void testFenceAfterLeaseTaken() {
+
+        assertEquals(Optional.of(1), leaderElection.runAsLeader(FENCE, () -> {
+            Runnable fence = leaderElection.fence(FENCE);
+            long token = leaderElection.currentToken(FENCE).orElseThrow();
+            fence.run();
+            leaderElection.checkCurrent(FENCE, token);
+
+            // another replica takes the lease and renewal drops it here
+            Lease.release(FENCE, leaderElection.getHolder());
+            Lease.tryAcquire(FENCE, "pod-b", Duration.ofMinutes(1));
+            assertFalse(leaderElection.acquire(FENCE));
+
+            assertThrows(WebApplicationException.class, fence::run);
+            assertThrows(WebApplicationException.class, () -> leaderElection.checkCurrent(FENCE, token));
+            return 1;
+        }));
+    }
+
+    @Test
+    void testRefreshWhileAnotherReplicaHoldsLease() {
+
+        Lease.tryAcquire(LeaderElection.REFRESH, "another-replica", Duration.ofMinutes(1));
+
+        try {
+            WebApplicationException ex = assertThrows(WebApplicationException.class, artifactService::refresh);
+            assertEquals(409, ex.getResponse().getStatus());
+        } finally {
+            Lease.release(LeaderElection.REFRESH, "another-replica");
+        }
+
+        assertEquals(2, artifactService.refresh());
+    }
+
+}
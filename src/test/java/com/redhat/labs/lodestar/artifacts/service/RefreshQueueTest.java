@@ -0,0 +1,105 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Engagement;
+import com.redhat.labs.lodestar.artifacts.model.GetListOptions;
+import com.redhat.labs.lodestar.artifacts.model.RefreshJob;
+import com.redhat.labs.lodestar.artifacts.model.RefreshTask;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class RefreshQueueTest {
+
+    @Inject
+    RefreshQueue refreshQueue;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @Test
+    void testRefreshThroughQueue() {
+
+        artifactService.purge();
+        RefreshJob job = refreshQueue.refresh();
+
+        assertEquals(RefreshJob.COMPLETE, job.getStatus());
+        assertEquals(4, job.getTotal());
+        assertEquals(4, job.getCompleted());
+        assertEquals(0, job.getFailed());
+        assertEquals(4, RefreshTask.countByJobAndStatus(job.getJobId(), RefreshTask.DONE));
+        assertEquals(2, artifactService.countArtifacts(new GetListOptions()).getCount());
+        assertEquals(job.getJobId(), artifactService.getLatestRefreshJob().getJobId());
+    }
+
+    @Test
+    void testExpiredClaimReclaimed() {
+
+        String jobId = UUID.randomUUID().toString();
+        Engagement engagement = new Engagement();
+        engagement.setUuid("expired-claim");
+        engagement.setProjectId(99);
+        RefreshTask.enqueue(jobId, null, List.of(engagement));
+
+        RefreshTask dead = claim(jobId, "dead-replica", Duration.ZERO);
+        RefreshTask live = claim(jobId, "live-replica", Duration.ofMinutes(1));
+
+        assertEquals(dead.getId(), live.getId());
+        assertEquals(2, live.getAttempts());
+        assertFalse(dead.isClaimed());
+        assertFalse(dead.complete());
+        assertTrue(live.isClaimed());
+        assertTrue(live.complete());
+    }
+
+    @Test
+    void testSupersededTaskNotRetried() {
+
+        String jobId = UUID.randomUUID().toString();
+        RefreshJob.start(jobId, "old-leader");
+        Engagement engagement = new Engagement();
+        engagement.setUuid("1111");
+        engagement.setProjectId(1);
+        // a token the refresh lease never had, as if a newer leader had taken it
+        RefreshTask.enqueue(jobId, -1L, List.of(engagement));
+        RefreshJob.queued(jobId, 1);
+
+        refreshQueue.process(claim(jobId, "old-leader", Duration.ofMinutes(1)));
+
+        assertEquals(1, RefreshTask.countByJobAndStatus(jobId, RefreshTask.SUPERSEDED));
+        assertEquals(0, RefreshTask.countByJobAndStatus(jobId, RefreshTask.PENDING));
+        RefreshJob job = RefreshJob.findJob(jobId).orElseThrow();
+        assertEquals(RefreshJob.COMPLETE, job.getStatus());
+        assertEquals(1, job.getSuperseded());
+        assertEquals(0, job.getFailed());
+    }
+
+    /**
+     * Claims until the task of the job comes up, handing back anything else
+     * queued by other tests.
+     */
+    private RefreshTask claim(String jobId, String owner, Duration lease) {
+        while (true) {
+            RefreshTask task = RefreshTask.claim(owner, lease).orElseThrow();
+            if (jobId.equals(task.getJobId())) {
+                return task;
+            }
+            task.complete();
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.redhat.labs.lodestar.artifacts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.model.EngagementBlob;
+import com.redhat.labs.lodestar.artifacts.model.Timestamps;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class TimestampMigrationTest {
+
+    @Inject
+    TimestampMigration migration;
+
+    @Inject
+    ArtifactService artifactService;
+
+    @Inject
+    Jsonb jsonb;
+
+    @BeforeEach
+    void setUp() {
+        artifactService.purge();
+    }
+
+    @Test
+    void testStringTimestampsConverted() {
+
+        // given
+        Artifact.insertDocuments(List.of(
+                legacy("legacy-1", "2021-03-01T10:00:00.123456", "2021-04-01T10:00:00"),
+                legacy("legacy-2", "2021-03-02T10:00:00", "not a timestamp")));
+
+        // legacy documents still load
+        Artifact before = Artifact.findByUuid("legacy-1").orElseThrow();
+        assertEquals(Timestamps.parse("2021-04-01T10:00:00"), before.getModified());
+
+        // when
+        long migrated = migration.migrate();
+
+        // then
+        assertEquals(2, migrated);
+        assertEquals(0, migration.migrate());
+
+        Document converted = raw("legacy-1");
+        assertTrue(converted.get("created") instanceof Date);
+        assertEquals(Date.from(Timestamps.parse("2021-03-01T10:00:00.123")), converted.get("created"));
+        assertEquals(Date.from(Timestamps.parse("2021-04-01T10:00:00")), converted.get("modified"));
+        assertNull(raw("legacy-2").get("modified"));
+
+        Artifact after = Artifact.findByUuid("legacy-1").orElseThrow();
+        assertTrue(jsonb.toJson(after).contains("\"updated\": \"2021-04-01T10:00\""));
+
+    }
+
+    @Test
+    void testStringBlobTimesConverted() {
+
+        // given
+        MongoCollection<EngagementBlob> blobs = EngagementBlob.mongoCollection();
+        blobs.withDocumentClass(Document.class).insertOne(new Document("_id", "legacy-blob").append("projectId", 1L)
+                .append("blobId", "abc").append("updated", "2021-04-01T10:00:00"));
+
+        // legacy documents still load
+        assertEquals(Timestamps.parse("2021-04-01T10:00:00"),
+                EngagementBlob.findBlobsByEngagement().get("legacy-blob").getUpdated());
+
+        // when
+        long migrated = migration.migrate();
+
+        // then
+        assertEquals(1, migrated);
+        assertEquals(Date.from(Timestamps.parse("2021-04-01T10:00:00")),
+                blobs.withDocumentClass(Document.class).find(Filters.eq("_id", "legacy-blob")).first().get("updated"));
+
+    }
+
+    Document legacy(String uuid, String created, String modified) {
+        return new Document("uuid", uuid).append("engagementUuid", "1111").append("title", uuid)
+                .append("description", uuid).append("type", "Demo").append("linkAddress", "http://" + uuid)
+                .append("region", "na").append("created", created).append("modified", modified);
+    }
+
+    Document raw(String uuid) {
+        MongoCollection<Artifact> collection = Artifact.mongoCollection();
+        return collection.withDocumentClass(Document.class).find(Filters.eq("uuid", uuid)).first();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.redhat.labs.lodestar.artifacts.tracing;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+import javax.ws.rs.ProcessingException;
+
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.labs.lodestar.artifacts.mock.ExternalApiWireMock;
+import com.redhat.labs.lodestar.artifacts.model.Artifact;
+import com.redhat.labs.lodestar.artifacts.rest.client.EngagementApiRestClient;
+import com.redhat.labs.lodestar.artifacts.service.ArtifactService;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+@QuarkusTest
+@QuarkusTestResource(ExternalApiWireMock.class)
+class TracingTest {
+
+    @Inject
+    ArtifactService service;
+
+    @Inject
+    LocalSpanExporter exporter;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    @RestClient
+    EngagementApiRestClient engagementApi;
+
+    @BeforeEach
+    void setUp() {
+        service.purge();
+        service.refresh();
+        exporter.reset();
+    }
+
+    @Test
+    void testModifyArtifactsSpans() {
+
+        Artifact artifact = Artifact.builder().type("newType").title("New Artifact").linkAddress("http://new-artifact")
+                .description("a new artifact").engagementUuid("1111").build();
+
+        given().contentType(ContentType.JSON).body(jsonb.toJson(List.of(artifact)))
+                .put("/api/artifacts/engagement/uuid/1111/na").then().statusCode(200);
+
+        List<SpanData> spans = exporter.getFinishedSpans();
+        Map<String, SpanData> byName = spans.stream()
+                .collect(Collectors.toMap(SpanData::getName, s -> s, (first, second) -> first));
+
+        SpanData resource = byName.get("ArtifactResource.processEngagementArtifacts");
+        SpanData update = byName.get("ArtifactService.updateArtifacts");
+        SpanData file = byName.get("ArtifactService.updateArtifactsFile");
+        SpanData legacy = byName.get("ArtifactService.createLegacyEngagementAction");
+
+        assertEquals(resource.getSpanId(), update.getParentSpanId());
+        assertEquals(update.getSpanId(), file.getParentSpanId());
+        assertEquals(file.getSpanId(), legacy.getParentSpanId());
+        assertEquals(file.getSpanId(), byName.get("GitlabRestClient.createCommit").getParentSpanId());
+        assertEquals(file.getSpanId(), byName.get("EngagementApiRestClient.getEngagementByUuid").getParentSpanId());
+        assertEquals(legacy.getSpanId(), byName.get("GitlabRestClient.getFile").getParentSpanId());
+        assertTrue(spans.stream().anyMatch(
+                s -> s.getName().startsWith("mongodb.") && update.getSpanId().equals(s.getParentSpanId())));
+    }
+
+    @Test
+    void testClientSpanEndedWithoutResponse() {
+
+        assertThrows(ProcessingException.class, () -> engagementApi.getEngagementByUuid("9999"));
+
+        SpanData span = exporter.getFinishedSpans().stream()
+                .filter(s -> s.getName().equals("EngagementApiRestClient.getEngagementByUuid")).findFirst()
+                .orElseThrow();
+        assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+        assertEquals(SpanKind.CLIENT, span.getKind());
+        assertFalse(span.getEvents().isEmpty());
+    }
+
+}